@@ -1,16 +1,11 @@
 package com.samarthshukla.gallery;
 
 import android.Manifest;
-import android.content.ContentUris;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.graphics.Rect;
-import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.provider.MediaStore;
-import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -26,14 +21,8 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Locale;
-import java.util.Map;
 
 public class AlbumContentFragment extends Fragment {
 
@@ -47,17 +36,17 @@ public class AlbumContentFragment extends Fragment {
         fragment.setArguments(args);
         return fragment;
     }
-    private final List<MediaItem> mediaItems = new ArrayList<>();
-    private final List<MediaGroupedItem> groupedItems = new ArrayList<>();
+    private MediaTable mediaTable = new MediaTable();
+    private DateGrouper grouper;
+    private GroupIndex groups = GroupIndex.EMPTY;
     private RecyclerView recyclerView;
     private PhotoAdapter adapter;
     private Button btnAll, btnDays, btnMonths, btnYears;
     private View selectedBackground;
     private TextView tvSortDate;
     private ActivityResultLauncher<String[]> requestPermissions;
-    private SortMode currentSort = SortMode.ALL;
-
-    public enum SortMode {ALL, DAYS, MONTHS, YEARS}
+    private DateBucketer.Granularity currentSort = DateBucketer.Granularity.ALL;
+    private boolean observingAlbum;
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -76,10 +65,17 @@ public class AlbumContentFragment extends Fragment {
 
         recyclerView = view.findViewById(R.id.photosRecyclerView);
         GridLayoutManager layoutManager = new GridLayoutManager(requireContext(), 3);
-        adapter = PhotoAdapter.forGrid(requireContext(), groupedItems);
-        layoutManager.setSpanSizeLookup(adapter.spanLookup());
+        adapter = PhotoAdapter.forGrid(requireContext(), mediaTable);
+        grouper = new DateGrouper((table, groups, appended) -> {
+            if (!isAdded()) return;
+            this.groups = groups;
+            adapter.submit(table, groups.sections(currentSort));
+        });
+        layoutManager.setSpanSizeLookup(adapter.spanLookup(layoutManager));
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new GridPreloader(adapter));
+        recyclerView.addOnItemTouchListener(new GridZoomController(recyclerView, adapter));
 
         setupFilterButtons();
         setupPermissions();
@@ -87,6 +83,13 @@ public class AlbumContentFragment extends Fragment {
         return view;
     }
 
+    @Override
+    public void onDestroyView() {
+        grouper.release();
+        observingAlbum = false;
+        super.onDestroyView();
+    }
+
     private void setupPermissions() {
         requestPermissions = registerForActivityResult(new ActivityResultContracts.RequestMultiplePermissions(), result -> {
             boolean granted = true;
@@ -129,90 +132,26 @@ public class AlbumContentFragment extends Fragment {
     }
 
     private void loadMediaFromFolder() {
-        new Thread(() -> {
-            List<MediaItem> allItems = new ArrayList<>();
-            allItems.addAll(fetchFrom(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, false));
-            allItems.addAll(fetchFrom(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, true));
-            Collections.sort(allItems, (a, b) -> Long.compare(b.getDateAdded(), a.getDateAdded()));
-
-            mediaItems.clear();
-            mediaItems.addAll(allItems);
-
-            requireActivity().runOnUiThread(() -> buildGroupedList(currentSort));
-        }).start();
-    }
-
-    private List<MediaItem> fetchFrom(Uri collection, boolean isVideo) {
-        List<MediaItem> list = new ArrayList<>();
-
-        String[] projection = {
-                MediaStore.MediaColumns._ID,
-                MediaStore.MediaColumns.DATE_ADDED
-        };
-
         String bucketId = getArguments() != null ? getArguments().getString(ARG_BUCKET_ID) : null;
-
-        if (bucketId == null) return list;
-
-        String selection = MediaStore.Images.Media.BUCKET_ID + "=?";
-        String[] selectionArgs = new String[]{bucketId};
-        String order = MediaStore.MediaColumns.DATE_ADDED + " DESC";
-
-        try (Cursor cursor = requireContext().getContentResolver().query(
-                collection, projection, selection, selectionArgs, order)) {
-            if (cursor != null) {
-                int idCol = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns._ID);
-                int dateCol = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_ADDED);
-
-                while (cursor.moveToNext()) {
-                    long id = cursor.getLong(idCol);
-                    long date = cursor.getLong(dateCol) * 1000L;
-                    Uri uri = ContentUris.withAppendedId(collection, id);
-                    list.add(new MediaItem(uri, isVideo, date, date));
-                }
-            }
-        }
-
-        return list;
+        if (bucketId == null || observingAlbum) return;
+        observingAlbum = true;
+        // Served from the shared bucket index; new and deleted items arrive as a new table
+        MediaRepository.get(requireContext()).album(bucketId).observe(getViewLifecycleOwner(), table -> {
+            mediaTable = table;
+            grouper.regroup(table);
+        });
     }
 
-    private void buildGroupedList(SortMode mode) {
-        groupedItems.clear();
-        Map<String, List<MediaItem>> groupedMap = new LinkedHashMap<>();
-
-        for (MediaItem item : mediaItems) {
-            Calendar cal = Calendar.getInstance();
-            cal.setTimeInMillis(item.getDateAdded());
+    private void showGranularity() {
+        GridLayoutManager lm = (GridLayoutManager) recyclerView.getLayoutManager();
+        int first = lm.findFirstVisibleItemPosition();
+        View anchorView = lm.findViewByPosition(first);
+        int offset = anchorView != null ? anchorView.getTop() : 0;
 
-            String key;
-            switch (mode) {
-                case DAYS:
-                    key = DateFormat.format("MMMM dd, yyyy", cal).toString();
-                    break;
-                case MONTHS:
-                    key = DateFormat.format("MMMM yyyy", cal).toString();
-                    break;
-                case YEARS:
-                    key = String.valueOf(cal.get(Calendar.YEAR));
-                    break;
-                default:
-                    key = "All Photos";
-            }
-
-            groupedMap.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
+        int anchor = adapter.swapSections(groups.sections(currentSort), first);
+        if (anchor != RecyclerView.NO_POSITION) {
+            lm.scrollToPositionWithOffset(anchor, offset);
         }
-
-        for (Map.Entry<String, List<MediaItem>> entry : groupedMap.entrySet()) {
-            String header = entry.getKey();
-            if (!"All Photos".equals(header)) {
-                groupedItems.add(new MediaGroupedItem(MediaGroupedItem.TYPE_HEADER, header));
-            }
-            for (MediaItem item : entry.getValue()) {
-                groupedItems.add(new MediaGroupedItem(MediaGroupedItem.TYPE_MEDIA, item));
-            }
-        }
-
-        adapter.notifyDataSetChanged();
     }
 
     private void setupFilterButtons() {
@@ -223,20 +162,20 @@ public class AlbumContentFragment extends Fragment {
             updateSortSelection(clicked);
 
             if (v == btnAll) {
-                currentSort = SortMode.ALL;
+                currentSort = DateBucketer.Granularity.ALL;
                 tvSortDate.setText("All Photos");
             } else if (v == btnDays) {
-                currentSort = SortMode.DAYS;
+                currentSort = DateBucketer.Granularity.DAY;
                 tvSortDate.setText("Days");
             } else if (v == btnMonths) {
-                currentSort = SortMode.MONTHS;
+                currentSort = DateBucketer.Granularity.MONTH;
                 tvSortDate.setText("Months");
             } else if (v == btnYears) {
-                currentSort = SortMode.YEARS;
+                currentSort = DateBucketer.Granularity.YEAR;
                 tvSortDate.setText("Years");
             }
 
-            buildGroupedList(currentSort);
+            showGranularity();
         };
 
         for (Button b : buttons) b.setOnClickListener(listener);
@@ -0,0 +1,187 @@
+package com.samarthshukla.gallery;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.samarthshukla.gallery.MediaIndexDatabase.*;
+
+/**
+ * Keeps the per-bucket summary rows of {@link MediaIndexDatabase#TABLE_ALBUMS} in step with the
+ * media table. Every indexed row that is added or removed adjusts its bucket's counters in place;
+ * only removing a bucket's cover or oldest item goes back to the media table, for that bucket alone
+ * and through the bucket index. Used inside the caller's write transaction, after the media row
+ * itself was written or deleted.
+ */
+final class AlbumStatsTable {
+
+    /** What one media row contributes to its album. */
+    static final class Item {
+        final long id;
+        final boolean video;
+        final long dateAdded;    // millis
+        final long dateModified; // seconds
+        final long size;
+        final String bucketId;
+        final String bucketName;
+
+        Item(long id, boolean video, long dateAdded, long dateModified, long size,
+             String bucketId, String bucketName) {
+            this.id = id;
+            this.video = video;
+            this.dateAdded = dateAdded;
+            this.dateModified = dateModified;
+            this.size = size;
+            this.bucketId = bucketId;
+            this.bucketName = bucketName;
+        }
+
+        /** @return the indexed row {@code id}, or null if the row is unknown */
+        static Item load(SQLiteDatabase db, long id) {
+            try (Cursor c = db.rawQuery("SELECT " + COL_IS_VIDEO + ", " + COL_DATE_ADDED + ", "
+                    + COL_DATE_MODIFIED + ", " + COL_SIZE + ", " + COL_BUCKET_ID + ", " + COL_BUCKET_NAME
+                    + " FROM " + TABLE_MEDIA + " WHERE " + COL_ID + "=?", new String[]{String.valueOf(id)})) {
+                if (!c.moveToFirst()) return null;
+                return new Item(id, c.getInt(0) != 0, c.getLong(1), c.getLong(2), c.getLong(3),
+                        c.getString(4), c.getString(5));
+            }
+        }
+
+        /** The indexed rows among {@code ids}, by id; unknown ids are left out. */
+        static Map<Long, Item> loadAll(SQLiteDatabase db, long[] ids) {
+            Map<Long, Item> items = new HashMap<>();
+            for (int from = 0; from < ids.length; from += MediaIndex.MAX_SQL_ARGS) {
+                int to = Math.min(ids.length, from + MediaIndex.MAX_SQL_ARGS);
+                String[] args = new String[to - from];
+                StringBuilder in = new StringBuilder();
+                for (int i = from; i < to; i++) {
+                    args[i - from] = String.valueOf(ids[i]);
+                    in.append(i == from ? "?" : ",?");
+                }
+                try (Cursor c = db.rawQuery("SELECT " + COL_ID + ", " + COL_IS_VIDEO + ", " + COL_DATE_ADDED + ", "
+                        + COL_DATE_MODIFIED + ", " + COL_SIZE + ", " + COL_BUCKET_ID + ", " + COL_BUCKET_NAME
+                        + " FROM " + TABLE_MEDIA + " WHERE " + COL_ID + " IN (" + in + ")", args)) {
+                    while (c.moveToNext()) {
+                        long id = c.getLong(0);
+                        items.put(id, new Item(id, c.getInt(1) != 0, c.getLong(2), c.getLong(3), c.getLong(4),
+                                c.getString(5), c.getString(6)));
+                    }
+                }
+            }
+            return items;
+        }
+    }
+
+    /** Newest item of the bucket, with the same tie-break as the grid. */
+    private static String newestInBucket(String column) {
+        return "(SELECT " + column + " FROM " + TABLE_MEDIA
+                + " WHERE " + TABLE_MEDIA + "." + COL_BUCKET_ID + "=" + TABLE_ALBUMS + "." + COL_BUCKET_ID
+                + " ORDER BY " + COL_DATE_ADDED + " DESC, " + COL_ID + " DESC LIMIT 1)";
+    }
+
+    /** Re-reads cover and date range from the media table; each subquery is a bucket index seek. */
+    private static final String REFRESH_EXTREMES = "UPDATE " + TABLE_ALBUMS + " SET "
+            + COL_COVER_ID + "=" + newestInBucket(COL_ID) + ", "
+            + COL_COVER_IS_VIDEO + "=" + newestInBucket(COL_IS_VIDEO) + ", "
+            + COL_COVER_MODIFIED + "=" + newestInBucket(COL_DATE_MODIFIED) + ", "
+            + COL_NEWEST_DATE + "=" + newestInBucket(COL_DATE_ADDED) + ", "
+            + COL_OLDEST_DATE + "=(SELECT MIN(" + COL_DATE_ADDED + ") FROM " + TABLE_MEDIA
+            + " WHERE " + TABLE_MEDIA + "." + COL_BUCKET_ID + "=" + TABLE_ALBUMS + "." + COL_BUCKET_ID + ")";
+
+    private final SQLiteDatabase db;
+    private SQLiteStatement add;
+    private SQLiteStatement insert;
+    private SQLiteStatement remove;
+    private SQLiteStatement refreshExtremes;
+
+    AlbumStatsTable(SQLiteDatabase db) {
+        this.db = db;
+    }
+
+    void add(Item item) {
+        if (item.bucketId == null) return;
+        if (add == null) {
+            // SET expressions all see the row as it was, so the cover test uses the old newest date
+            add = db.compileStatement("UPDATE " + TABLE_ALBUMS + " SET "
+                    + COL_BUCKET_NAME + "=IFNULL(?1, " + COL_BUCKET_NAME + "), "
+                    + COL_ITEM_COUNT + "=" + COL_ITEM_COUNT + "+1, "
+                    + COL_VIDEO_COUNT + "=" + COL_VIDEO_COUNT + "+?2, "
+                    + COL_TOTAL_BYTES + "=" + COL_TOTAL_BYTES + "+?3, "
+                    + COL_OLDEST_DATE + "=MIN(" + COL_OLDEST_DATE + ", ?4), "
+                    + COL_COVER_ID + "=CASE WHEN " + isNewer() + " THEN ?5 ELSE " + COL_COVER_ID + " END, "
+                    + COL_COVER_IS_VIDEO + "=CASE WHEN " + isNewer() + " THEN ?2 ELSE " + COL_COVER_IS_VIDEO + " END, "
+                    + COL_COVER_MODIFIED + "=CASE WHEN " + isNewer() + " THEN ?6 ELSE " + COL_COVER_MODIFIED + " END, "
+                    + COL_NEWEST_DATE + "=MAX(" + COL_NEWEST_DATE + ", ?4)"
+                    + " WHERE " + COL_BUCKET_ID + "=?7");
+            insert = db.compileStatement("INSERT INTO " + TABLE_ALBUMS + " ("
+                    + COL_BUCKET_NAME + ", " + COL_ITEM_COUNT + ", " + COL_VIDEO_COUNT + ", "
+                    + COL_TOTAL_BYTES + ", " + COL_OLDEST_DATE + ", " + COL_COVER_ID + ", "
+                    + COL_COVER_IS_VIDEO + ", " + COL_COVER_MODIFIED + ", " + COL_NEWEST_DATE + ", "
+                    + COL_BUCKET_ID + ") VALUES (?1, 1, ?2, ?3, ?4, ?5, ?2, ?6, ?4, ?7)");
+        }
+        if (bind(add, item).executeUpdateDelete() == 0) {
+            bind(insert, item).executeInsert();
+        }
+    }
+
+    void remove(Item item) {
+        if (item.bucketId == null) return;
+        if (remove == null) {
+            remove = db.compileStatement("UPDATE " + TABLE_ALBUMS + " SET "
+                    + COL_ITEM_COUNT + "=" + COL_ITEM_COUNT + "-1, "
+                    + COL_VIDEO_COUNT + "=" + COL_VIDEO_COUNT + "-?, "
+                    + COL_TOTAL_BYTES + "=" + COL_TOTAL_BYTES + "-?"
+                    + " WHERE " + COL_BUCKET_ID + "=?");
+            refreshExtremes = db.compileStatement(REFRESH_EXTREMES + " WHERE " + COL_BUCKET_ID + "=?");
+        }
+        remove.clearBindings();
+        remove.bindLong(1, item.video ? 1 : 0);
+        remove.bindLong(2, item.size);
+        remove.bindString(3, item.bucketId);
+        remove.executeUpdateDelete();
+
+        String[] args = {item.bucketId};
+        try (Cursor c = db.rawQuery("SELECT " + COL_ITEM_COUNT + ", " + COL_COVER_ID + ", " + COL_OLDEST_DATE
+                + " FROM " + TABLE_ALBUMS + " WHERE " + COL_BUCKET_ID + "=?", args)) {
+            if (!c.moveToFirst()) return;
+            if (c.getInt(0) <= 0) {
+                db.delete(TABLE_ALBUMS, COL_BUCKET_ID + "=?", args);
+            } else if (c.getLong(1) == item.id || item.dateAdded <= c.getLong(2)) {
+                refreshExtremes.bindString(1, item.bucketId);
+                refreshExtremes.executeUpdateDelete();
+            }
+        }
+    }
+
+    /** Recomputes every album from the media table, for bulk rewrites such as a full reconcile. */
+    void rebuild() {
+        db.delete(TABLE_ALBUMS, null, null);
+        db.execSQL("INSERT INTO " + TABLE_ALBUMS + " ("
+                + COL_BUCKET_ID + ", " + COL_BUCKET_NAME + ", " + COL_ITEM_COUNT + ", "
+                + COL_VIDEO_COUNT + ", " + COL_TOTAL_BYTES + ")"
+                + " SELECT " + COL_BUCKET_ID + ", MAX(" + COL_BUCKET_NAME + "), COUNT(*), SUM("
+                + COL_IS_VIDEO + "), SUM(" + COL_SIZE + ")"
+                + " FROM " + TABLE_MEDIA + " WHERE " + COL_BUCKET_ID + " IS NOT NULL"
+                + " GROUP BY " + COL_BUCKET_ID);
+        db.execSQL(REFRESH_EXTREMES);
+    }
+
+    private static String isNewer() {
+        return "(?4 > " + COL_NEWEST_DATE + " OR (?4 = " + COL_NEWEST_DATE + " AND ?5 > " + COL_COVER_ID + "))";
+    }
+
+    private static SQLiteStatement bind(SQLiteStatement statement, Item item) {
+        statement.clearBindings();
+        if (item.bucketName != null) statement.bindString(1, item.bucketName);
+        statement.bindLong(2, item.video ? 1 : 0);
+        statement.bindLong(3, item.size);
+        statement.bindLong(4, item.dateAdded);
+        statement.bindLong(5, item.id);
+        statement.bindLong(6, item.dateModified);
+        statement.bindString(7, item.bucketId);
+        return statement;
+    }
+}
@@ -1,9 +1,6 @@
 package com.samarthshukla.gallery;
 
-import android.content.ContentUris;
 import android.content.Intent;
-import android.database.Cursor;
-import android.net.Uri;
 import android.os.Bundle;
 
 import androidx.annotation.NonNull;
@@ -11,19 +8,30 @@ import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import android.provider.MediaStore;
 import android.view.LayoutInflater;
+import android.view.Menu;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.PopupMenu;
 
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.Future;
 
 public class AlbumsFragment extends Fragment {
 
+    private static final String STATE_ALBUM_ORDER = "albumOrder";
+    private static final MediaIndex.AlbumOrder[] ORDERS = MediaIndex.AlbumOrder.values();
+    private static final String[] ORDER_LABELS = {"Recent", "Oldest", "Largest", "Name"};
+
     private RecyclerView albumRecyclerView;
+    private MainAlbumAdapter adapter;
+    private final List<Object> mixedItems = new ArrayList<>();
+
+    private Future<?> pendingLoad;
+    private MediaIndex.AlbumOrder albumOrder = MediaIndex.AlbumOrder.RECENT;
+
+    private final MediaIndex.ChangeListener mediaChangeListener = changes -> loadImageFolders();
 
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
@@ -31,72 +39,70 @@ public class AlbumsFragment extends Fragment {
 
         albumRecyclerView = view.findViewById(R.id.albumsRecyclerView);
         albumRecyclerView.setLayoutManager(new LinearLayoutManager(requireContext()));
+        if (savedInstanceState != null) {
+            albumOrder = ORDERS[savedInstanceState.getInt(STATE_ALBUM_ORDER, 0)];
+        }
 
-        List<ImageFolder> folderList = loadImageFolders();
-        List<Object> mixedItems = new ArrayList<>();
-        mixedItems.add(folderList);  // Only adding one section for now
+        mixedItems.clear();
+        mixedItems.add(new ArrayList<ImageFolder>());  // Only adding one section for now
 
-        MainAlbumAdapter adapter = new MainAlbumAdapter(requireContext(), mixedItems, folder -> {
+        adapter = new MainAlbumAdapter(requireContext(), mixedItems, folder -> {
             Intent intent = new Intent(getContext(), AlbumsActivity.class);
             intent.putExtra("bucketId", folder.getBucketId());
             intent.putExtra("bucketName", folder.getFolderName());
             startActivity(intent);
         });
 
+        adapter.setSort(ORDER_LABELS[albumOrder.ordinal()], this::showOrderMenu);
+
         albumRecyclerView.setAdapter(adapter);
+        MediaIndex.get(requireContext()).addChangeListener(mediaChangeListener);
+        loadImageFolders();
+        // Opening an album is then a lookup in the shared bucket index
+        MediaRepository.get(requireContext()).preloadAlbums();
 
         return view;
     }
 
-    private List<ImageFolder> loadImageFolders() {
-        Map<String, ImageFolder> folderMap = new LinkedHashMap<>();
-        loadFromMediaStore(folderMap, MediaStore.Images.Media.EXTERNAL_CONTENT_URI);
-        loadFromMediaStore(folderMap, MediaStore.Video.Media.EXTERNAL_CONTENT_URI);
-        return new ArrayList<>(folderMap.values());
+    @Override
+    public void onSaveInstanceState(@NonNull Bundle outState) {
+        super.onSaveInstanceState(outState);
+        outState.putInt(STATE_ALBUM_ORDER, albumOrder.ordinal());
+    }
+
+    @Override
+    public void onDestroyView() {
+        MediaIndex.get(requireContext()).removeChangeListener(mediaChangeListener);
+        pendingLoad = null;
+        super.onDestroyView();
+    }
+
+    private void loadImageFolders() {
+        // A newer change supersedes a reload that has not finished yet
+        if (pendingLoad != null) pendingLoad.cancel(false);
+        MediaIndex index = MediaIndex.get(requireContext());
+        MediaIndex.AlbumOrder order = albumOrder;
+        pendingLoad = BackgroundExecutor.io().submit(getViewLifecycleOwner(), BackgroundExecutor.Lane.VISIBLE,
+                () -> index.loadAlbums(order),
+                folders -> {
+                    pendingLoad = null;
+                    mixedItems.set(0, folders);
+                    adapter.notifyItemChanged(0);
+                });
     }
 
-    private void loadFromMediaStore(Map<String, ImageFolder> folderMap, Uri collectionUri) {
-        String[] projection = {
-                MediaStore.MediaColumns._ID,
-                MediaStore.Images.Media.BUCKET_DISPLAY_NAME,
-                MediaStore.Images.Media.BUCKET_ID // <-- Add this
-        };
-
-        String sortOrder = MediaStore.MediaColumns.DATE_ADDED + " DESC";
-
-        try (Cursor cursor = requireContext().getContentResolver().query(
-                collectionUri, projection, null, null, sortOrder
-        )) {
-            if (cursor != null) {
-                int idColumn = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns._ID);
-                int bucketColumn = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME);
-                int bucketNameColumn = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME);
-                int bucketIdColumn = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_ID);
-
-                while (cursor.moveToNext()) {
-                    long id = cursor.getLong(idColumn);
-                    String bucketName = cursor.getString(bucketNameColumn);
-                    String bucketId = cursor.getString(bucketIdColumn);
-                    Uri contentUri = ContentUris.withAppendedId(collectionUri, id);
-
-                    if (folderMap.containsKey(bucketId)) {
-                        ImageFolder folder = folderMap.get(bucketId);
-                        folderMap.put(bucketId, new ImageFolder(
-                                folder.getFolderName(),
-                                folder.getFirstImageUri(),
-                                folder.getImageCount() + 1,
-                                bucketId
-                        ));
-                    } else {
-                        folderMap.put(bucketId, new ImageFolder(
-                                bucketName,
-                                contentUri,
-                                1,
-                                bucketId
-                        ));
-                    }
-                }
-            }
+    private void showOrderMenu(View anchor) {
+        PopupMenu popup = new PopupMenu(requireContext(), anchor);
+        for (int i = 0; i < ORDERS.length; i++) {
+            popup.getMenu().add(Menu.NONE, i, i, ORDER_LABELS[i]);
         }
+        popup.setOnMenuItemClickListener(item -> {
+            albumOrder = ORDERS[item.getItemId()];
+            adapter.setSort(ORDER_LABELS[albumOrder.ordinal()], this::showOrderMenu);
+            // Sorting is an ORDER BY over one summary row per album; reload rather than sort here
+            loadImageFolders();
+            return true;
+        });
+        popup.show();
     }
-}
\ No newline at end of file
+}
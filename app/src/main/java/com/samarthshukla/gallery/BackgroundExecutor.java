@@ -0,0 +1,298 @@
+package com.samarthshukla.gallery;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+
+/**
+ * The app's background threads: one small pool for I/O ({@link #io()}: MediaStore, the index, files)
+ * and one for CPU work ({@link #cpu()}: grouping, diffing), both bounded. Queued work runs by
+ * {@link Lane}, so what the user is looking at goes ahead of indexing; within a lane it runs in order.
+ * <p>
+ * Screens submit with their view lifecycle: results are delivered on the main thread only while
+ * that lifecycle is alive, and interruptible work still pending when it is destroyed is cancelled.
+ */
+public final class BackgroundExecutor {
+
+    private static final String TAG = "BackgroundExecutor";
+
+    /** Queue priority, highest first. */
+    public enum Lane {
+        /** Loads for what is on screen now. */
+        VISIBLE(true),
+        /** File operations the user started; never interrupted, only their result is dropped. */
+        USER(false),
+        /** Indexing and other work nobody waits on. */
+        BACKGROUND(true);
+
+        final boolean interruptible;
+
+        Lane(boolean interruptible) {
+            this.interruptible = interruptible;
+        }
+    }
+
+    private static BackgroundExecutor io;
+    private static BackgroundExecutor cpu;
+
+    public static synchronized BackgroundExecutor io() {
+        if (io == null) io = new BackgroundExecutor("io", 3);
+        return io;
+    }
+
+    public static synchronized BackgroundExecutor cpu() {
+        if (cpu == null) {
+            int cores = Runtime.getRuntime().availableProcessors();
+            cpu = new BackgroundExecutor("cpu", Math.max(2, Math.min(4, cores - 1)));
+        }
+        return cpu;
+    }
+
+    private final ThreadPoolExecutor pool;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final AtomicLong sequence = new AtomicLong();
+    private final Map<String, Coalesced> coalesced = new HashMap<>();
+
+    private BackgroundExecutor(String name, int threads) {
+        AtomicInteger count = new AtomicInteger();
+        pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(),
+                r -> new Thread(r, name + "-" + count.incrementAndGet()));
+        pool.allowCoreThreadTimeOut(true);
+    }
+
+    public void execute(Lane lane, Runnable work) {
+        pool.execute(new LaneTask(lane, work));
+    }
+
+    /**
+     * An executor that runs its tasks one at a time, in order, on this pool. For workers that keep
+     * state between tasks, such as the pager and the grouper.
+     */
+    public Executor serial(Lane lane) {
+        return new SerialExecutor(lane);
+    }
+
+    /**
+     * Calls {@code work} for every index in [0, count) on up to {@code parallelism} threads and
+     * returns when all calls have finished. The calling thread takes part, and helpers that the pool
+     * has not started by the time the indexes run out are skipped rather than waited for, so this is
+     * safe to call from a task already running on this pool. Blocking; never call on the main thread.
+     */
+    public void forEachParallel(Lane lane, int parallelism, int count, IntConsumer work) {
+        final AtomicInteger next = new AtomicInteger();
+        final Runnable drain = () -> {
+            for (int i = next.getAndIncrement(); i < count; i = next.getAndIncrement()) {
+                work.accept(i);
+            }
+        };
+        final Object lock = new Object();
+        final int[] running = {0};
+        final boolean[] closed = {false};
+
+        int helpers = Math.min(parallelism, count) - 1;
+        for (int h = 0; h < helpers; h++) {
+            execute(lane, () -> {
+                synchronized (lock) {
+                    if (closed[0]) return;
+                    running[0]++;
+                }
+                try {
+                    drain.run();
+                } finally {
+                    synchronized (lock) {
+                        running[0]--;
+                        lock.notifyAll();
+                    }
+                }
+            });
+        }
+
+        drain.run();
+        synchronized (lock) {
+            closed[0] = true;
+            boolean interrupted = false;
+            while (running[0] > 0) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    interrupted = true; // the helpers still hold indexes; wait them out
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Runs {@code work} and hands its result to {@code onResult} on the main thread, unless
+     * {@code owner} is destroyed first, in which case nothing is delivered and, on an interruptible
+     * lane, the work is cancelled. {@link Lane#USER} work always runs to the end. Must be called on
+     * the main thread.
+     */
+    public <T> Future<?> submit(LifecycleOwner owner, Lane lane, Callable<T> work, Consumer<T> onResult) {
+        Lifecycle lifecycle = owner.getLifecycle();
+        final LaneTask[] holder = new LaneTask[1];
+        LifecycleEventObserver cancelOnDestroy = (source, event) -> {
+            // A USER task may be half way through moving files; let it finish, delivery checks the lifecycle
+            if (event == Lifecycle.Event.ON_DESTROY && lane.interruptible) holder[0].cancel(true);
+        };
+
+        LaneTask task = new LaneTask(lane, () -> {
+            T result;
+            try {
+                result = work.call();
+            } catch (Exception e) {
+                Log.e(TAG, "Background task failed", e);
+                mainHandler.post(() -> lifecycle.removeObserver(cancelOnDestroy));
+                return;
+            }
+            mainHandler.post(() -> {
+                lifecycle.removeObserver(cancelOnDestroy);
+                if (!holder[0].isCancelled() && lifecycle.getCurrentState() != Lifecycle.State.DESTROYED) {
+                    onResult.accept(result);
+                }
+            });
+        });
+        holder[0] = task;
+
+        // A view lifecycle is still INITIALIZED inside onCreateView; only a destroyed one is too late
+        if (lifecycle.getCurrentState() != Lifecycle.State.DESTROYED) {
+            lifecycle.addObserver(cancelOnDestroy);
+        } else if (lane.interruptible) {
+            task.cancel(false);
+            return task;
+        }
+        pool.execute(task);
+        return task;
+    }
+
+    /**
+     * Runs {@code work} unless a run under the same key is already queued, in which case that run
+     * covers this request too. A request that arrives while a run is in progress schedules exactly
+     * one more run after it, so the last request is always served. For reloads and syncs that
+     * bursts of change notifications would otherwise repeat.
+     */
+    public void coalesce(String key, Lane lane, Runnable work) {
+        synchronized (coalesced) {
+            Coalesced entry = coalesced.get(key);
+            if (entry != null) {
+                if (entry.running) entry.again = true;
+                return;
+            }
+            coalesced.put(key, new Coalesced());
+        }
+        execute(lane, () -> runCoalesced(key, lane, work));
+    }
+
+    private void runCoalesced(String key, Lane lane, Runnable work) {
+        synchronized (coalesced) {
+            coalesced.get(key).running = true;
+        }
+        try {
+            work.run();
+        } finally {
+            boolean again;
+            synchronized (coalesced) {
+                Coalesced entry = coalesced.get(key);
+                again = entry.again;
+                if (again) {
+                    entry.running = false;
+                    entry.again = false;
+                } else {
+                    coalesced.remove(key);
+                }
+            }
+            if (again) execute(lane, () -> runCoalesced(key, lane, work));
+        }
+    }
+
+    private static final class Coalesced {
+        boolean running;
+        boolean again;
+    }
+
+    /** Pool entry ordered by lane, then by submission. */
+    private final class LaneTask extends FutureTask<Void> implements Comparable<LaneTask> {
+        final Lane lane;
+        final long order = sequence.getAndIncrement();
+
+        LaneTask(Lane lane, Runnable work) {
+            super(work, null);
+            this.lane = lane;
+        }
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(lane == Lane.BACKGROUND
+                    ? Process.THREAD_PRIORITY_LOWEST : Process.THREAD_PRIORITY_BACKGROUND);
+            super.run();
+        }
+
+        @Override
+        protected void done() {
+            if (isCancelled()) return;
+            try {
+                get();
+            } catch (Exception e) {
+                // Plain execute() work has nowhere else to report to
+                Log.e(TAG, "Background task failed", e);
+            }
+        }
+
+        @Override
+        public int compareTo(@NonNull LaneTask other) {
+            if (lane != other.lane) return Integer.compare(lane.ordinal(), other.lane.ordinal());
+            return Long.compare(order, other.order);
+        }
+    }
+
+    private final class SerialExecutor implements Executor {
+        private final Lane lane;
+        private final ArrayDeque<Runnable> tasks = new ArrayDeque<>();
+        private boolean active;
+
+        SerialExecutor(Lane lane) {
+            this.lane = lane;
+        }
+
+        @Override
+        public synchronized void execute(@NonNull Runnable work) {
+            tasks.add(work);
+            if (!active) scheduleNext();
+        }
+
+        private synchronized void scheduleNext() {
+            Runnable next = tasks.poll();
+            active = next != null;
+            if (next == null) return;
+            BackgroundExecutor.this.execute(lane, () -> {
+                try {
+                    next.run();
+                } finally {
+                    scheduleNext();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.samarthshukla.gallery;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Every album's rows, newest first, keyed by bucket id: opening an album is a map lookup rather
+ * than a query. Built from {@link MediaIndex#loadBuckets} in one ordered walk of the bucket index.
+ * Immutable; a change to some buckets produces a new index that shares the untouched tables.
+ */
+public final class BucketIndex {
+
+    public static final BucketIndex EMPTY = new BucketIndex(Collections.emptyMap());
+
+    private static final MediaTable NO_ROWS = new MediaTable();
+
+    private final Map<String, MediaTable> buckets;
+
+    BucketIndex(Map<String, MediaTable> buckets) {
+        this.buckets = buckets;
+    }
+
+    /** The album's rows; an empty table for an unknown or emptied bucket. Never append to it. */
+    public MediaTable slice(String bucketId) {
+        MediaTable table = buckets.get(bucketId);
+        return table != null ? table : NO_ROWS;
+    }
+
+    /** A copy with {@code reloaded} replacing those buckets; empty tables drop the bucket. */
+    BucketIndex with(Map<String, MediaTable> reloaded) {
+        Map<String, MediaTable> next = new HashMap<>(buckets);
+        for (Map.Entry<String, MediaTable> e : reloaded.entrySet()) {
+            if (e.getValue().isEmpty()) {
+                next.remove(e.getKey());
+            } else {
+                next.put(e.getKey(), e.getValue());
+            }
+        }
+        return new BucketIndex(next);
+    }
+}
@@ -0,0 +1,127 @@
+package com.samarthshukla.gallery;
+
+import android.text.format.DateFormat;
+
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * Splits newest-first table rows into day, month and year sections in a single pass.
+ * Day boundaries are worked out arithmetically from epoch millis and the zone offset, so a row
+ * that falls on the same day as the previous one costs one comparison and allocates nothing;
+ * a header label is formatted once per bucket. Not thread-safe: use one instance per grouping thread.
+ */
+public class DateBucketer {
+
+    public enum Granularity { ALL, DAY, MONTH, YEAR }
+
+    private static final long DAY_MS = 24L * 60 * 60 * 1000;
+
+    private final TimeZone zone;
+    private final Calendar calendar; // only touched when a label is formatted
+
+    // Local day the previous row fell on, as [start, end) in UTC millis
+    private long dayStart = Long.MAX_VALUE;
+    private long dayEnd = Long.MIN_VALUE;
+
+    public DateBucketer(TimeZone zone) {
+        this.zone = zone;
+        this.calendar = Calendar.getInstance(zone);
+    }
+
+    /** Sections for the first {@code rowCount} rows of {@code table}. */
+    public GroupIndex group(MediaTable table, int rowCount) {
+        return extend(GroupIndex.EMPTY, table, rowCount);
+    }
+
+    /**
+     * Sections for the first {@code rowCount} rows of {@code table}, reusing {@code base} for the
+     * rows it already covers. Only the rows appended since are visited.
+     */
+    public GroupIndex extend(GroupIndex base, MediaTable table, int rowCount) {
+        if (base.rowCount() >= rowCount) return base;
+
+        Sections days = new Sections(base.sections(Granularity.DAY));
+        Sections months = new Sections(base.sections(Granularity.MONTH));
+        Sections years = new Sections(base.sections(Granularity.YEAR));
+        dayStart = Long.MAX_VALUE;
+        dayEnd = Long.MIN_VALUE;
+
+        for (int row = base.rowCount(); row < rowCount; row++) {
+            long millis = table.dateAdded(row);
+            if (millis >= dayStart && millis < dayEnd) continue; // same day, so same month and year
+
+            long day = Math.floorDiv(millis + zone.getOffset(millis), DAY_MS);
+            dayStart = startOfLocalDay(day);
+            dayEnd = startOfLocalDay(day + 1);
+
+            // Civil date from the epoch day (proleptic Gregorian, H. Hinnant's algorithm)
+            long z = day + 719468;
+            long era = Math.floorDiv(z, 146097);
+            long doe = z - era * 146097;
+            long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+            long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+            long mp = (5 * doy + 2) / 153;
+            long month = mp < 10 ? mp + 3 : mp - 9;
+            long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+
+            days.add(row, day, millis);
+            months.add(row, year * 12 + month - 1, millis);
+            years.add(row, year, millis);
+        }
+        return new GroupIndex(rowCount, days.build(rowCount), months.build(rowCount), years.build(rowCount));
+    }
+
+    /** UTC millis of local midnight on {@code day}, allowing for the offset changing that day. */
+    private long startOfLocalDay(long day) {
+        long local = day * DAY_MS;
+        long guess = local - zone.getOffset(local);
+        return local - zone.getOffset(guess);
+    }
+
+    private String label(long millis, Granularity granularity) {
+        calendar.setTimeInMillis(millis);
+        switch (granularity) {
+            case DAY:
+                return DateFormat.format("MMMM dd, yyyy", calendar).toString();
+            case MONTH:
+                return DateFormat.format("MMMM yyyy", calendar).toString();
+            default:
+                return String.valueOf(calendar.get(Calendar.YEAR));
+        }
+    }
+
+    /** Growable copy of one granularity's sections. */
+    private final class Sections {
+        private final Granularity granularity;
+        private int[] starts;
+        private String[] labels;
+        private int count;
+        private long lastKey;
+
+        Sections(SectionIndex base) {
+            granularity = base.granularity();
+            count = base.sectionCount();
+            starts = Arrays.copyOf(base.startRows(), count + 16);
+            labels = Arrays.copyOf(base.labels(), count + 16);
+            lastKey = base.lastKey();
+        }
+
+        void add(int row, long key, long millis) {
+            if (count > 0 && key == lastKey) return; // still in the last section
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+                labels = Arrays.copyOf(labels, count * 2);
+            }
+            starts[count] = row;
+            labels[count] = label(millis, granularity);
+            count++;
+            lastKey = key;
+        }
+
+        SectionIndex build(int rowCount) {
+            return new SectionIndex(granularity, rowCount, starts, labels, count, lastKey);
+        }
+    }
+}
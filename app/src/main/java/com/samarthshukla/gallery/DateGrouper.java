@@ -0,0 +1,75 @@
+package com.samarthshukla.gallery;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+
+/**
+ * Keeps a grid's {@link GroupIndex} in step with its {@link MediaTable}, bucketing on a serial
+ * worker over the shared CPU pool so the UI thread never walks the rows. Appended pages only extend the existing sections.
+ * Public methods and callbacks run on the main thread.
+ */
+public class DateGrouper {
+
+    public interface Callback {
+        /**
+         * @param appended true when the sections only grew at the end, so every position the
+         *                 adapter already shows is unchanged
+         */
+        void onGroupsReady(MediaTable table, GroupIndex groups, boolean appended);
+    }
+
+    private final Callback callback;
+    private final Executor executor = BackgroundExecutor.cpu().serial(BackgroundExecutor.Lane.VISIBLE);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Serial worker only
+    private final DateBucketer bucketer = new DateBucketer(TimeZone.getDefault());
+    private MediaTable latestTable;
+    private GroupIndex latest;
+
+    private int generation;
+    private boolean released;
+
+    public DateGrouper(Callback callback) {
+        this.callback = callback;
+    }
+
+    /** Groups every row of {@code table} from scratch. */
+    public void regroup(MediaTable table) {
+        if (released) return;
+        final int gen = ++generation;
+        executor.execute(() -> {
+            GroupIndex groups = bucketer.group(table, table.size());
+            latestTable = table;
+            latest = groups;
+            publish(gen, table, groups, false);
+        });
+    }
+
+    /** Groups the rows appended to {@code table} since it was last grouped. */
+    public void extend(MediaTable table) {
+        if (released) return;
+        final int gen = generation;
+        executor.execute(() -> {
+            if (table != latestTable) return; // a regroup for the new table covers these rows
+            GroupIndex groups = bucketer.extend(latest, table, table.size());
+            latest = groups;
+            publish(gen, table, groups, true);
+        });
+    }
+
+    public void release() {
+        generation++;
+        released = true;
+    }
+
+    private void publish(int gen, MediaTable table, GroupIndex groups, boolean appended) {
+        mainHandler.post(() -> {
+            if (gen != generation) return; // superseded by a newer regroup
+            callback.onGroupsReady(table, groups, appended);
+        });
+    }
+}
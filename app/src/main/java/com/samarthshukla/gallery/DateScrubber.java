@@ -0,0 +1,153 @@
+package com.samarthshukla.gallery;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+/**
+ * Draggable scroll thumb along the grid's right edge that shows the date under it while dragged.
+ * It only reports a 0..1 fraction; the fragment maps that to a row and a date label.
+ * Fades out a moment after the grid stops moving.
+ */
+public class DateScrubber extends View {
+
+    public interface OnScrubListener {
+        void onScrubStarted();
+
+        /** The thumb moved to {@code fraction} (0 = top, 1 = bottom) of the grid. */
+        void onScrub(float fraction);
+
+        void onScrubEnded();
+    }
+
+    private static final long HIDE_DELAY_MS = 1500;
+    private static final long FADE_MS = 200;
+
+    private final float density = getResources().getDisplayMetrics().density;
+    private final float thumbWidth = 6 * density;
+    private final float thumbHeight = 48 * density;
+    private final float touchWidth = 32 * density;
+    private final float bubblePadding = 12 * density;
+    private final float bubbleGap = 16 * density;
+
+    private final Paint thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint bubblePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint textPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+
+    private OnScrubListener listener;
+    private float fraction;
+    private String label;
+    private boolean dragging;
+
+    private final Runnable hide = () -> animate().alpha(0f).setDuration(FADE_MS);
+
+    public DateScrubber(Context context) {
+        this(context, null);
+    }
+
+    public DateScrubber(Context context, @Nullable AttributeSet attrs) {
+        super(context, attrs);
+        thumbPaint.setColor(0xFF007AFF);
+        bubblePaint.setColor(0xE6222222);
+        textPaint.setColor(0xFFFFFFFF);
+        textPaint.setTextSize(14 * density);
+        textPaint.setTextAlign(Paint.Align.CENTER);
+        setAlpha(0f);
+    }
+
+    public void setOnScrubListener(OnScrubListener listener) {
+        this.listener = listener;
+    }
+
+    /** Follows the grid while it scrolls on its own; ignored while the thumb is held. */
+    public void setFraction(float fraction) {
+        if (dragging) return;
+        this.fraction = clamp(fraction);
+        reveal();
+        invalidate();
+    }
+
+    public void setLabel(String label) {
+        this.label = label;
+        if (dragging) invalidate();
+    }
+
+    private void reveal() {
+        removeCallbacks(hide);
+        if (getAlpha() < 1f) animate().alpha(1f).setDuration(FADE_MS);
+        if (!dragging) postDelayed(hide, HIDE_DELAY_MS);
+    }
+
+    @Override
+    public boolean onTouchEvent(@NonNull MotionEvent e) {
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN:
+                // Only the strip along the edge grabs the thumb, and only while it is showing
+                if (getAlpha() == 0f || e.getX() < getWidth() - touchWidth) return false;
+                dragging = true;
+                getParent().requestDisallowInterceptTouchEvent(true);
+                reveal();
+                if (listener != null) listener.onScrubStarted();
+                moveTo(e.getY());
+                return true;
+            case MotionEvent.ACTION_MOVE:
+                if (dragging) moveTo(e.getY());
+                return dragging;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                if (!dragging) return false;
+                dragging = false;
+                reveal();
+                invalidate();
+                if (listener != null) listener.onScrubEnded();
+                return true;
+            default:
+                return dragging;
+        }
+    }
+
+    private void moveTo(float y) {
+        float track = getHeight() - thumbHeight;
+        fraction = track > 0 ? clamp((y - thumbHeight / 2) / track) : 0f;
+        invalidate();
+        if (listener != null) listener.onScrub(fraction);
+    }
+
+    @Override
+    protected void onDraw(@NonNull Canvas canvas) {
+        float top = fraction * (getHeight() - thumbHeight);
+        float right = getWidth() - 4 * density;
+        rect.set(right - thumbWidth, top, right, top + thumbHeight);
+        canvas.drawRoundRect(rect, thumbWidth / 2, thumbWidth / 2, thumbPaint);
+
+        if (dragging && label != null && !label.isEmpty()) {
+            float textWidth = textPaint.measureText(label);
+            float centerY = top + thumbHeight / 2;
+            float bubbleHeight = textPaint.getTextSize() + bubblePadding;
+            float bubbleRight = right - thumbWidth - bubbleGap;
+            rect.set(bubbleRight - textWidth - 2 * bubblePadding, centerY - bubbleHeight / 2,
+                    bubbleRight, centerY + bubbleHeight / 2);
+            canvas.drawRoundRect(rect, bubbleHeight / 2, bubbleHeight / 2, bubblePaint);
+            float baseline = centerY - (textPaint.descent() + textPaint.ascent()) / 2;
+            canvas.drawText(label, rect.centerX(), baseline, textPaint);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        removeCallbacks(hide);
+        super.onDetachedFromWindow();
+    }
+
+    private static float clamp(float f) {
+        return Math.max(0f, Math.min(1f, f));
+    }
+}
@@ -0,0 +1,156 @@
+package com.samarthshukla.gallery;
+
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Long-press-and-drag selection for a photo grid. A long press on a cell anchors a range; dragging
+ * moves its other end, so a fast drag covers every cell it passes instead of the few that happened
+ * to be under a move event. Holding the finger near the top or bottom edge scrolls the grid, faster
+ * the closer it gets, and the range follows. The range is committed when the finger lifts.
+ */
+public class DragSelectController implements RecyclerView.OnItemTouchListener {
+
+    private static final long LONG_PRESS_MS = 250; // quicker than the system long-press
+    private static final int EDGE_DP = 64;         // auto-scroll zone at the top and bottom
+    private static final int MAX_SCROLL_DP = 20;   // per frame, at the very edge
+
+    private final RecyclerView rv;
+    private final PhotoAdapter adapter;
+    private final int touchSlop;
+    private final float edgePx;
+    private final float maxScrollPx;
+    private final Runnable longPress = this::onLongPress;
+    private final Runnable autoScroll = this::autoScrollStep;
+
+    private float downX, downY, lastX, lastY;
+    private int downPosition = RecyclerView.NO_POSITION;
+    private boolean dragging;
+    private boolean autoScrolling;
+
+    public DragSelectController(RecyclerView rv, PhotoAdapter adapter) {
+        this.rv = rv;
+        this.adapter = adapter;
+        this.touchSlop = ViewConfiguration.get(rv.getContext()).getScaledTouchSlop();
+        float density = rv.getResources().getDisplayMetrics().density;
+        this.edgePx = EDGE_DP * density;
+        this.maxScrollPx = MAX_SCROLL_DP * density;
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_DOWN: {
+                dragging = false;
+                downX = lastX = e.getX();
+                downY = lastY = e.getY();
+                View child = rv.findChildViewUnder(downX, downY);
+                downPosition = child != null ? rv.getChildAdapterPosition(child) : RecyclerView.NO_POSITION;
+                // Headers have their own long-press: select the whole group
+                if (downPosition != RecyclerView.NO_POSITION && !adapter.isHeaderPosition(downPosition)) {
+                    rv.postDelayed(longPress, LONG_PRESS_MS);
+                }
+                break;
+            }
+            case MotionEvent.ACTION_MOVE:
+                lastX = e.getX();
+                lastY = e.getY();
+                if (!dragging && Math.hypot(lastX - downX, lastY - downY) > touchSlop) {
+                    rv.removeCallbacks(longPress); // it's a scroll
+                }
+                break;
+            case MotionEvent.ACTION_POINTER_DOWN:
+                // A second finger means a pinch, not a long-press
+                rv.removeCallbacks(longPress);
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                rv.removeCallbacks(longPress);
+                // The long-press fired without a move after it, so onTouchEvent never took over
+                finishDrag();
+                break;
+        }
+        // Once dragging, take the gesture: the grid must not scroll and the cell must not see a tap
+        return dragging;
+    }
+
+    @Override
+    public void onTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+        switch (e.getActionMasked()) {
+            case MotionEvent.ACTION_MOVE:
+                lastX = e.getX();
+                lastY = e.getY();
+                extendToFinger();
+                if (!autoScrolling && scrollSpeed() != 0) {
+                    autoScrolling = true;
+                    rv.postOnAnimation(autoScroll);
+                }
+                break;
+            case MotionEvent.ACTION_UP:
+            case MotionEvent.ACTION_CANCEL:
+                finishDrag();
+                break;
+        }
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+        if (disallowIntercept) {
+            rv.removeCallbacks(longPress);
+            finishDrag();
+        }
+    }
+
+    private void onLongPress() {
+        if (downPosition == RecyclerView.NO_POSITION) return;
+        if (!adapter.isSelectionMode()) adapter.enterSelectionMode();
+        adapter.beginRangeSelection(downPosition);
+        dragging = true;
+        if (rv.getParent() != null) rv.getParent().requestDisallowInterceptTouchEvent(true);
+    }
+
+    private void finishDrag() {
+        if (!dragging) return;
+        dragging = false;
+        autoScrolling = false;
+        rv.removeCallbacks(autoScroll);
+        adapter.endRangeSelection();
+    }
+
+    /** Extends the range to the cell under the finger, or the edge row when the finger is past it. */
+    private void extendToFinger() {
+        float x = Math.max(0, Math.min(lastX, rv.getWidth() - 1));
+        float y = Math.max(0, Math.min(lastY, rv.getHeight() - 1));
+        View child = rv.findChildViewUnder(x, y);
+        if (child == null) return; // between cells; the next move lands on one
+        int position = rv.getChildAdapterPosition(child);
+        if (position != RecyclerView.NO_POSITION) adapter.extendRangeSelection(position);
+    }
+
+    private void autoScrollStep() {
+        int dy = dragging ? scrollSpeed() : 0;
+        if (dy == 0 || !rv.canScrollVertically(dy)) {
+            autoScrolling = false;
+            return;
+        }
+        rv.scrollBy(0, dy);
+        extendToFinger();
+        rv.postOnAnimation(autoScroll);
+    }
+
+    /** Pixels to scroll this frame: zero outside the edge zones, up to the maximum at the edge. */
+    private int scrollSpeed() {
+        if (lastY < edgePx) {
+            return -Math.round(maxScrollPx * Math.min(1f, (edgePx - lastY) / edgePx));
+        }
+        float bottom = rv.getHeight() - edgePx;
+        if (lastY > bottom) {
+            return Math.round(maxScrollPx * Math.min(1f, (lastY - bottom) / edgePx));
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,83 @@
+package com.samarthshukla.gallery;
+
+import android.os.SystemClock;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Puts a {@link PhotoAdapter} into fast-scroll mode while the grid moves faster than anyone can look
+ * at it, and back once it slows down or settles, at which point the cells left on screen get their
+ * real thumbnails. Speed is measured in grid rows per second so the threshold holds for any cell
+ * size. Dragging the date scrubber counts as fast scrolling for as long as the finger is down.
+ */
+public class FastScrollController extends RecyclerView.OnScrollListener {
+
+    private static final float ENTER_ROWS_PER_SECOND = 25f;
+    private static final float EXIT_ROWS_PER_SECOND = 10f;
+    private static final float SMOOTHING = 0.3f; // weight of the newest sample
+
+    private final PhotoAdapter adapter;
+    private float rowsPerSecond;
+    private long lastSampleAt;
+    private boolean scrubbing;
+
+    public FastScrollController(PhotoAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+        if (dy == 0 || scrubbing) return;
+        long now = SystemClock.uptimeMillis();
+        long elapsed = Math.max(1, now - lastSampleAt);
+        lastSampleAt = now;
+        if (elapsed > 100) {
+            rowsPerSecond = 0; // first frame of a new gesture
+            return;
+        }
+
+        float rowPx = rowHeight(rv);
+        float sample = Math.abs(dy) / rowPx * 1000f / elapsed;
+        rowsPerSecond += (sample - rowsPerSecond) * SMOOTHING;
+
+        if (!adapter.isFastScrolling() && rowsPerSecond > ENTER_ROWS_PER_SECOND) {
+            adapter.setFastScrolling(true);
+        } else if (adapter.isFastScrolling() && rowsPerSecond < EXIT_ROWS_PER_SECOND) {
+            settle(rv);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE && !scrubbing) {
+            rowsPerSecond = 0;
+            if (adapter.isFastScrolling()) settle(rv);
+        }
+    }
+
+    /** The scrubber was grabbed or released; jumps it causes are not scroll samples. */
+    public void setScrubbing(RecyclerView rv, boolean scrubbing) {
+        this.scrubbing = scrubbing;
+        if (scrubbing) {
+            adapter.setFastScrolling(true);
+        } else {
+            rowsPerSecond = 0;
+            settle(rv);
+        }
+    }
+
+    private void settle(RecyclerView rv) {
+        adapter.setFastScrolling(false);
+        GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+        if (lm == null) return;
+        adapter.decodeDeferred(lm.findFirstVisibleItemPosition(), lm.findLastVisibleItemPosition());
+    }
+
+    private static float rowHeight(RecyclerView rv) {
+        GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+        int spans = lm != null ? lm.getSpanCount() : 1;
+        return Math.max(1f, rv.getWidth() / (float) spans);
+    }
+}
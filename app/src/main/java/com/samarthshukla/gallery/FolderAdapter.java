@@ -1,6 +1,7 @@
 package com.samarthshukla.gallery;
 
 import android.content.Context;
+import android.text.format.Formatter;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -11,6 +12,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.RequestOptions;
 
 import java.util.List;
 
@@ -23,11 +25,15 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.ViewHolder
     private final Context context;
     private final List<ImageFolder> folders;
     private final OnFolderClickListener clickListener;
+    private final RequestOptions coverOptions;
+    private final ThumbnailPyramid.Level coverLevel;
 
     public FolderAdapter(Context context, List<ImageFolder> folders, OnFolderClickListener listener) {
         this.context = context;
         this.folders = folders;
         this.clickListener = listener;
+        this.coverOptions = ThumbnailPolicy.folderCover(context);
+        this.coverLevel = ThumbnailPolicy.folderCoverLevel(context);
     }
 
     @NonNull
@@ -42,11 +48,16 @@ public class FolderAdapter extends RecyclerView.Adapter<FolderAdapter.ViewHolder
         ImageFolder folder = folders.get(position);
 
         holder.folderName.setText(folder.getFolderName());
-        holder.itemCount.setText(folder.getImageCount() + " items");
+        String count = folder.getImageCount() + " items";
+        if (folder.getTotalBytes() > 0) {
+            count += " · " + Formatter.formatShortFileSize(context, folder.getTotalBytes());
+        }
+        holder.itemCount.setText(count);
 
+        ThumbnailPyramid.Key cover = folder.getCoverKey();
         Glide.with(context)
-                .load(folder.getFirstImageUri())
-                .centerCrop()
+                .load(cover != null ? cover.at(coverLevel) : folder.getFirstImageUri())
+                .apply(coverOptions)
                 .into(holder.thumbnail);
 
         holder.itemView.setOnClickListener(v -> {
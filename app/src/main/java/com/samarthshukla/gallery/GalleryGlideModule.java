@@ -0,0 +1,28 @@
+package com.samarthshukla.gallery;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Glide;
+import com.bumptech.glide.Registry;
+import com.bumptech.glide.annotation.GlideModule;
+import com.bumptech.glide.module.AppGlideModule;
+
+import java.nio.ByteBuffer;
+
+/** Registers the app's own loaders with Glide. */
+@GlideModule
+public class GalleryGlideModule extends AppGlideModule {
+
+    @Override
+    public void registerComponents(@NonNull Context context, @NonNull Glide glide, @NonNull Registry registry) {
+        registry.prepend(ThumbnailPyramid.Key.class, ByteBuffer.class,
+                new ThumbnailModelLoader.Factory(ThumbnailPyramid.get(context)));
+    }
+
+    @Override
+    public boolean isManifestParsingEnabled() {
+        return false;
+    }
+}
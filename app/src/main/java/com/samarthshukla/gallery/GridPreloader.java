@@ -0,0 +1,69 @@
+package com.samarthshukla.gallery;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Warms grid thumbnails for the cells about to scroll into view, in the scroll direction and further
+ * ahead on faster flings. Each position is requested once: positions already inside the warmed
+ * window are skipped until the direction changes.
+ */
+public class GridPreloader extends RecyclerView.OnScrollListener {
+
+    private static final int MIN_AHEAD = 12;
+    private static final int MAX_AHEAD = 90;
+    private static final float AHEAD_PER_PX = 0.5f; // extra cells per pixel scrolled in one frame
+
+    private final PhotoAdapter adapter;
+
+    // Positions already warmed: [warmedFrom, warmedTo)
+    private int warmedFrom;
+    private int warmedTo;
+    private boolean scrollingDown = true;
+
+    public GridPreloader(PhotoAdapter adapter) {
+        this.adapter = adapter;
+    }
+
+    @Override
+    public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+        if (dy == 0) return;
+        GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+        if (lm == null) return;
+
+        boolean down = dy > 0;
+        if (down != scrollingDown) {
+            scrollingDown = down;
+            warmedFrom = warmedTo = 0;
+        }
+
+        int ahead = Math.min(MAX_AHEAD, MIN_AHEAD + (int) (Math.abs(dy) * AHEAD_PER_PX));
+        int from, to;
+        if (down) {
+            from = lm.findLastVisibleItemPosition() + 1;
+            to = Math.min(adapter.getItemCount(), from + ahead);
+        } else {
+            to = lm.findFirstVisibleItemPosition();
+            from = Math.max(0, to - ahead);
+        }
+        if (from >= to) return;
+
+        for (int pos = from; pos < to; pos++) {
+            if (pos >= warmedFrom && pos < warmedTo) {
+                ThumbnailStats.preloadSkipped();
+            } else if (adapter.preloadPosition(pos)) {
+                ThumbnailStats.preloadIssued();
+            }
+        }
+        warmedFrom = from;
+        warmedTo = to;
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView rv, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            ThumbnailStats.logAndReset();
+        }
+    }
+}
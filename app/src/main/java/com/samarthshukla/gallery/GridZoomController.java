@@ -0,0 +1,101 @@
+package com.samarthshukla.gallery;
+
+import android.view.MotionEvent;
+import android.view.ScaleGestureDetector;
+import android.view.View;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * Pinch-to-zoom for a photo grid: pinching steps through a fixed set of span counts, from a sparse
+ * two-column grid to a ten-column overview. The cell under the fingers stays put across a step.
+ * Each step resizes the recycled-view pool to a screenful of cells, so zooming out does not
+ * inflate a new batch of views while the denser grid fills in.
+ */
+public class GridZoomController implements RecyclerView.OnItemTouchListener {
+
+    private static final int[] SPAN_COUNTS = {2, 3, 5, 7, 10};
+    private static final float STEP = 1.3f; // pinch ratio that moves one zoom level
+
+    private final RecyclerView rv;
+    private final PhotoAdapter adapter;
+    private final ScaleGestureDetector detector;
+    private int level;
+    private float pendingScale = 1f;
+
+    public GridZoomController(RecyclerView rv, PhotoAdapter adapter) {
+        this.rv = rv;
+        this.adapter = adapter;
+        GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+        int spans = lm != null ? lm.getSpanCount() : SPAN_COUNTS[1];
+        level = 1;
+        for (int i = 0; i < SPAN_COUNTS.length; i++) {
+            if (SPAN_COUNTS[i] == spans) level = i;
+        }
+        detector = new ScaleGestureDetector(rv.getContext(), new ScaleGestureDetector.SimpleOnScaleGestureListener() {
+            @Override
+            public boolean onScaleBegin(@NonNull ScaleGestureDetector d) {
+                pendingScale = 1f;
+                return true;
+            }
+
+            @Override
+            public boolean onScale(@NonNull ScaleGestureDetector d) {
+                pendingScale *= d.getScaleFactor();
+                if (pendingScale > STEP) {
+                    zoomTo(level - 1, d.getFocusX(), d.getFocusY()); // fingers apart: fewer, bigger cells
+                    pendingScale = 1f;
+                } else if (pendingScale < 1f / STEP) {
+                    zoomTo(level + 1, d.getFocusX(), d.getFocusY());
+                    pendingScale = 1f;
+                }
+                return true;
+            }
+        });
+    }
+
+    @Override
+    public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+        detector.onTouchEvent(e);
+        // A second finger turns the gesture into a pinch; from then on the grid does not scroll
+        return detector.isInProgress() || e.getPointerCount() > 1;
+    }
+
+    @Override
+    public void onTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
+        detector.onTouchEvent(e);
+    }
+
+    @Override
+    public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {
+    }
+
+    private void zoomTo(int next, float focusX, float focusY) {
+        if (next < 0 || next >= SPAN_COUNTS.length || next == level) return;
+        GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+        if (lm == null) return;
+
+        // Anchor on the cell under the fingers, at the same height on screen
+        View anchor = rv.findChildViewUnder(focusX, focusY);
+        if (anchor == null) anchor = lm.getChildAt(0);
+        int anchorPos = anchor != null ? rv.getChildAdapterPosition(anchor) : RecyclerView.NO_POSITION;
+        int anchorTop = anchor != null ? anchor.getTop() : 0;
+
+        level = next;
+        int spans = SPAN_COUNTS[level];
+        adapter.setSpanCount(spans);
+        lm.setSpanCount(spans);
+        sizeRecycledPool(spans);
+        if (anchorPos != RecyclerView.NO_POSITION) {
+            lm.scrollToPositionWithOffset(anchorPos, anchorTop);
+        }
+    }
+
+    private void sizeRecycledPool(int spans) {
+        int cell = Math.max(1, rv.getWidth() / spans);
+        int rows = rv.getHeight() / cell + 2;
+        rv.getRecycledViewPool().setMaxRecycledViews(PhotoAdapter.TYPE_MEDIA, Math.max(5, spans * rows));
+    }
+}
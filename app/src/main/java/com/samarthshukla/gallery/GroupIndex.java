@@ -0,0 +1,44 @@
+package com.samarthshukla.gallery;
+
+/**
+ * Day, month and year sections over the same table rows, built together by {@link DateBucketer}
+ * so switching granularity is a lookup rather than another pass over the rows. Immutable.
+ */
+public class GroupIndex {
+
+    public static final GroupIndex EMPTY = new GroupIndex(0,
+            SectionIndex.empty(DateBucketer.Granularity.DAY),
+            SectionIndex.empty(DateBucketer.Granularity.MONTH),
+            SectionIndex.empty(DateBucketer.Granularity.YEAR));
+
+    private final int rowCount;
+    private final SectionIndex all;
+    private final SectionIndex days;
+    private final SectionIndex months;
+    private final SectionIndex years;
+
+    GroupIndex(int rowCount, SectionIndex days, SectionIndex months, SectionIndex years) {
+        this.rowCount = rowCount;
+        this.all = SectionIndex.ungrouped(rowCount);
+        this.days = days;
+        this.months = months;
+        this.years = years;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public SectionIndex sections(DateBucketer.Granularity granularity) {
+        switch (granularity) {
+            case DAY:
+                return days;
+            case MONTH:
+                return months;
+            case YEAR:
+                return years;
+            default:
+                return all;
+        }
+    }
+}
@@ -8,12 +8,33 @@ public class ImageFolder {
     private final Uri firstImageUri;
     private final int imageCount;
     private final String bucketId; // <- add this
+    private final ThumbnailPyramid.Key coverKey; // grid-level key of the cover, or null
+    private final int videoCount;
+    private final long totalBytes;
+    private final long newestDateAdded; // millis, 0 if unknown
+    private final long oldestDateAdded; // millis, 0 if unknown
 
     public ImageFolder(String folderName, Uri firstImageUri, int imageCount, String bucketId) {
+        this(folderName, firstImageUri, imageCount, bucketId, null);
+    }
+
+    public ImageFolder(String folderName, Uri firstImageUri, int imageCount, String bucketId,
+                       ThumbnailPyramid.Key coverKey) {
+        this(folderName, firstImageUri, imageCount, bucketId, coverKey, 0, 0, 0, 0);
+    }
+
+    public ImageFolder(String folderName, Uri firstImageUri, int imageCount, String bucketId,
+                       ThumbnailPyramid.Key coverKey, int videoCount, long totalBytes,
+                       long newestDateAdded, long oldestDateAdded) {
         this.folderName = folderName;
         this.firstImageUri = firstImageUri;
         this.imageCount = imageCount;
         this.bucketId = bucketId;
+        this.coverKey = coverKey;
+        this.videoCount = videoCount;
+        this.totalBytes = totalBytes;
+        this.newestDateAdded = newestDateAdded;
+        this.oldestDateAdded = oldestDateAdded;
     }
 
     public String getFolderName() {
@@ -31,4 +52,24 @@ public class ImageFolder {
     public String getBucketId() {
         return bucketId;
     }
+
+    public ThumbnailPyramid.Key getCoverKey() {
+        return coverKey;
+    }
+
+    public int getVideoCount() {
+        return videoCount;
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public long getNewestDateAdded() {
+        return newestDateAdded;
+    }
+
+    public long getOldestDateAdded() {
+        return oldestDateAdded;
+    }
 }
\ No newline at end of file
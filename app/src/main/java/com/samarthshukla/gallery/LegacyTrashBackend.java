@@ -0,0 +1,804 @@
+package com.samarthshukla.gallery;
+
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.media.MediaScannerConnection;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Environment;
+import android.os.ParcelFileDescriptor;
+import android.os.SystemClock;
+import android.provider.MediaStore;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+import android.util.Log;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.samarthshukla.gallery.RecycleBinManager.DeletedItem;
+
+import java.io.File;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The recycle bin as this app keeps it below Android 11: each file is moved into app storage,
+ * renamed when it is on the same volume and copied otherwise, and its MediaStore entry deleted,
+ * with the list of items in shared preferences. Restoring moves the file back into MediaStore.
+ * <p>
+ * Each batch is journaled with a synchronous commit before any file moves, so a crash halfway
+ * through is settled on the next start rather than leaving the user's file unlisted in the bin.
+ */
+class LegacyTrashBackend implements TrashBackend {
+    private static final String PREF_NAME = "recycle_bin";
+    private static final String KEY_DELETED_ITEMS = "deleted_items";
+    private static final String KEY_PENDING_MOVES = "pending_moves";
+    private static final String TAG = "LegacyTrashBackend";
+    // Copies contend for the same storage; past a few in flight they only queue up there
+    private static final int COPY_PARALLELISM = 3;
+
+    private static final AtomicLong copySequence = new AtomicLong();
+    private static boolean recoveryDone; // guarded by LegacyTrashBackend.class
+
+    private final Context context;
+    private final SharedPreferences preferences;
+    private final Gson gson = new Gson();
+    private final File binDir;
+
+    LegacyTrashBackend(Context context) {
+        this.context = context;
+        this.preferences = context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+        this.binDir = new File(context.getExternalFilesDir(null), "recycle_bin");
+    }
+
+    @Override
+    public List<DeletedItem> trash(List<Uri> uris, boolean[] videos, RecycleBinManager.ProgressListener progress) {
+        final int total = uris.size();
+        final List<DeletedItem> moved = new ArrayList<>();
+        final File recycleDir = recycleDir();
+        if (total == 0 || recycleDir == null) return moved;
+        recoverPendingMoves();
+        long start = SystemClock.elapsedRealtime();
+
+        final File[] targets = new File[total];
+        final File[] sources = new File[total];
+        BackgroundExecutor.io().forEachParallel(BackgroundExecutor.Lane.USER, COPY_PARALLELISM, total, i -> {
+            targets[i] = binFileFor(recycleDir, uris.get(i));
+            sources[i] = localFile(uris.get(i));
+        });
+        // Until the batch is listed, a crash would strand it in the bin, renamed originals included;
+        // journal every planned move first so the next start can put it back
+        long planned = System.currentTimeMillis();
+        List<PendingMove> journal = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            DeletedItem item = new DeletedItem(uris.get(i).toString(), targets[i].getAbsolutePath(), planned,
+                    targets[i].getName(), videos[i]);
+            journal.add(new PendingMove(item, sources[i] != null ? sources[i].getAbsolutePath() : null));
+        }
+        if (!journalMoves(journal)) {
+            Log.e(TAG, "Could not journal the batch; nothing moved");
+            return moved;
+        }
+
+        // Get everything into the bin first; no original is deleted unless its copy is on disk.
+        // A file on the bin's volume is renamed in, which moves no data; others are copied.
+        final File[] copies = new File[total];
+        final File[] renamedFrom = new File[total]; // set when the file itself was moved
+        final AtomicInteger copied = new AtomicInteger();
+        BackgroundExecutor.io().forEachParallel(BackgroundExecutor.Lane.USER, COPY_PARALLELISM, total, i -> {
+            Uri uri = uris.get(i);
+            File target = targets[i];
+            File source = sources[i];
+            if (source != null && source.renameTo(target)) {
+                renamedFrom[i] = source;
+                copies[i] = target;
+            } else if (copyToRecycleBin(uri, target)) {
+                copies[i] = target;
+            }
+            if (progress != null) {
+                // Workers finish out of order; report one at a time so done never goes back
+                synchronized (copied) {
+                    progress.onProgress(copied.incrementAndGet(), total);
+                }
+            }
+        });
+        syncBin(recycleDir, copies, renamedFrom);
+        long copyMs = SystemClock.elapsedRealtime() - start;
+
+        boolean[] deleted = deleteOriginals(uris, videos, copies);
+
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < total; i++) {
+            if (copies[i] == null) continue;
+            if (deleted[i]) {
+                moved.add(new DeletedItem(uris.get(i).toString(), copies[i].getAbsolutePath(), now,
+                        copies[i].getName(), videos[i]));
+            } else {
+                Log.e(TAG, "All deletion methods failed for URI: " + uris.get(i));
+                if (renamedFrom[i] == null) {
+                    copies[i].delete();
+                } else if (!copies[i].renameTo(renamedFrom[i])) {
+                    // The original itself is in the bin; it must go back where MediaStore has it
+                    Log.e(TAG, "Could not move " + copies[i] + " back to " + renamedFrom[i]);
+                }
+            }
+        }
+        finishMoves(journal, moved);
+
+        Log.d(TAG, "Moved " + moved.size() + " of " + total + " to recycle bin in "
+                + (SystemClock.elapsedRealtime() - start) + " ms (copying " + copyMs + " ms)");
+        return moved;
+    }
+
+    /**
+     * Deletes the originals whose copies succeeded. MediaStore items go in one applyBatch call, which
+     * MediaProvider runs as a single transaction; whatever the batch did not delete, including
+     * everything when one item makes the whole batch fail, goes through the per-item fallbacks.
+     */
+    private boolean[] deleteOriginals(List<Uri> uris, boolean[] videos, File[] copies) {
+        boolean[] deleted = new boolean[uris.size()];
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>();
+        int[] opItem = new int[uris.size()];
+        for (int i = 0; i < uris.size(); i++) {
+            Uri uri = uris.get(i);
+            if (copies[i] != null && MediaStore.AUTHORITY.equals(uri.getAuthority())) {
+                opItem[ops.size()] = i;
+                ops.add(ContentProviderOperation.newDelete(uri).build());
+            }
+        }
+        if (!ops.isEmpty()) {
+            try {
+                ContentProviderResult[] results = context.getContentResolver().applyBatch(MediaStore.AUTHORITY, ops);
+                for (int k = 0; k < results.length; k++) {
+                    deleted[opItem[k]] = results[k].count != null && results[k].count > 0;
+                }
+            } catch (Exception e) {
+                Log.w(TAG, "Batch delete failed, deleting one by one", e);
+            }
+        }
+        for (int i = 0; i < uris.size(); i++) {
+            if (copies[i] != null && !deleted[i]) deleted[i] = deleteOriginal(uris.get(i), videos[i]);
+        }
+        return deleted;
+    }
+
+    /** Tries each way of deleting one original in turn. */
+    private boolean deleteOriginal(Uri uri, boolean isVideo) {
+        // Method 1: Try ContentResolver delete
+        try {
+            int deletedRows = context.getContentResolver().delete(uri, null, null);
+            Log.d(TAG, "ContentResolver delete result: " + deletedRows + " rows deleted");
+            if (deletedRows > 0) {
+                return true;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "ContentResolver delete failed", e);
+        }
+
+        // Method 2: Try getting file path and deleting directly
+        try {
+            String filePath = getPathFromUri(uri);
+            if (filePath != null) {
+                File file = new File(filePath);
+                if (file.exists() && file.delete()) {
+                    Log.d(TAG, "Direct file delete successful: " + filePath);
+                    refreshMediaStore(uri);
+                    return true;
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Direct file delete failed", e);
+        }
+
+        // Method 3: Try MediaStore ID deletion
+        try {
+            String mediaId = getMediaIdFromUri(uri);
+            if (mediaId != null && deleteFromMediaStoreById(mediaId, isVideo)) {
+                Log.d(TAG, "MediaStore ID delete successful");
+                return true;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "MediaStore ID delete failed", e);
+        }
+
+        // Method 4: Try direct file deletion using SAF
+        try {
+            if (deleteFileDirectly(uri)) {
+                Log.d(TAG, "Direct URI delete successful");
+                return true;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Direct URI delete failed", e);
+        }
+        return false;
+    }
+
+    private File recycleDir() {
+        if (!binDir.exists() && !binDir.mkdirs()) {
+            Log.e(TAG, "Failed to create recycle bin directory");
+            return null;
+        }
+        return binDir;
+    }
+
+    private File binFileFor(File recycleDir, Uri uri) {
+        // Get the original file name and extension
+        String originalFileName = getFileNameFromUri(uri);
+        String extension = ".jpg"; // default extension
+
+        if (originalFileName != null) {
+            int lastDot = originalFileName.lastIndexOf('.');
+            if (lastDot > 0) {
+                extension = originalFileName.substring(lastDot);
+            }
+        }
+
+        // Generate unique filename with proper extension; moves run in parallel, so the
+        // timestamp alone is not unique
+        String fileName = "recycled_" + System.currentTimeMillis() + "_"
+                + copySequence.incrementAndGet() + extension;
+        return new File(recycleDir, fileName);
+    }
+
+    /** The file behind {@code uri} if it can be reached by path, so it can be moved instead of copied. */
+    private File localFile(Uri uri) {
+        String path = getPathFromUri(uri);
+        if (path == null) return null;
+        File file = new File(path);
+        return file.isFile() ? file : null;
+    }
+
+    /** Copies {@code uri} into {@code target} with a channel transfer, which stays in the kernel. */
+    private boolean copyToRecycleBin(Uri uri, File target) {
+        Log.d(TAG, "Copying file to: " + target.getAbsolutePath());
+        try {
+            ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(uri, "r");
+            if (pfd == null) {
+                Log.e(TAG, "Could not open file descriptor for URI: " + uri);
+                return false;
+            }
+            try (FileChannel in = new ParcelFileDescriptor.AutoCloseInputStream(pfd).getChannel();
+                 FileChannel out = new FileOutputStream(target).getChannel()) {
+                long totalBytes = transfer(in, out);
+                Log.d(TAG, "File copied successfully to: " + target.getAbsolutePath() + " (" + totalBytes + " bytes)");
+                return true;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error copying file to recycle bin", e);
+            target.delete();
+            return false;
+        }
+    }
+
+    /**
+     * Makes the batch durable before any original is deleted. Copies are not synced as they are
+     * written; once all are done, each is fsynced in parallel, by which time most of the data is
+     * already written back. One fsync of the directory then covers every new entry, renames
+     * included. A copy that cannot be synced is dropped, so its original stays.
+     */
+    private void syncBin(File recycleDir, File[] copies, File[] renamedFrom) {
+        BackgroundExecutor.io().forEachParallel(BackgroundExecutor.Lane.USER, COPY_PARALLELISM, copies.length, i -> {
+            if (copies[i] == null || renamedFrom[i] != null) return;
+            try (FileOutputStream out = new FileOutputStream(copies[i], true)) {
+                out.getFD().sync();
+            } catch (IOException e) {
+                Log.e(TAG, "Could not sync " + copies[i], e);
+                copies[i].delete();
+                copies[i] = null;
+            }
+        });
+        syncDirectory(recycleDir);
+    }
+
+    private String getFileNameFromUri(Uri uri) {
+        try {
+            // Try to get the file name from the URI
+            String uriString = uri.toString();
+            if (uriString.contains("/")) {
+                String fileName = uriString.substring(uriString.lastIndexOf("/") + 1);
+                if (fileName.contains("?")) {
+                    fileName = fileName.substring(0, fileName.indexOf("?"));
+                }
+                return fileName;
+            }
+            
+            // If we can't get it from URI, try to get it from MediaStore
+            String[] projection = { android.provider.MediaStore.MediaColumns.DISPLAY_NAME };
+            try (android.database.Cursor cursor = context.getContentResolver().query(uri, projection, null, null, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int columnIndex = cursor.getColumnIndexOrThrow(android.provider.MediaStore.MediaColumns.DISPLAY_NAME);
+                    return cursor.getString(columnIndex);
+                }
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting file name from URI", e);
+        }
+        return null;
+    }
+
+    /** @return true if {@code item} was copied into this bin */
+    boolean owns(DeletedItem item) {
+        String path = item.getRecyclePath();
+        return path != null && path.startsWith(binDir.getAbsolutePath() + File.separator);
+    }
+
+    @Override
+    public boolean restore(DeletedItem item) {
+        try {
+            Log.d(TAG, "Starting restore for item: " + item.getFileName());
+            
+            File recycleFile = new File(item.getRecyclePath());
+            if (!recycleFile.exists()) {
+                Log.e(TAG, "Recycle file does not exist: " + item.getRecyclePath());
+                return false;
+            }
+            
+            Log.d(TAG, "Recycle file exists: " + recycleFile.getAbsolutePath() + ", size: " + recycleFile.length());
+            
+            // Try to restore using MediaStore API
+            boolean restored = restoreToMediaStore(recycleFile, item.isVideo());
+            
+            if (restored) {
+                // Remove from recycle bin
+                recycleFile.delete();
+                removeDeletedItem(item);
+                Log.d(TAG, "Successfully restored file: " + item.getFileName());
+                // MediaStore notifies observers of the insert itself
+                return true;
+            } else {
+                Log.e(TAG, "Failed to restore file to MediaStore: " + item.getFileName());
+                return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error restoring file from recycle bin", e);
+        }
+        return false;
+    }
+
+    /**
+     * Puts {@code sourceFile} back into MediaStore. Below Android 10 MediaStore indexes files by
+     * path, so the file is renamed into DCIM/Camera and registered there without moving any data;
+     * otherwise, or if the rename fails, its content is transferred into a new MediaStore item.
+     */
+    boolean restoreToMediaStore(File sourceFile, boolean isVideo) {
+        android.content.ContentValues values = new android.content.ContentValues();
+        values.put(MediaStore.MediaColumns.DISPLAY_NAME, sourceFile.getName());
+        values.put(MediaStore.MediaColumns.MIME_TYPE, isVideo ? "video/*" : "image/*");
+        Uri collection = isVideo
+                ? MediaStore.Video.Media.EXTERNAL_CONTENT_URI
+                : MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+
+        File renamedTo = null;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
+            File cameraDir = new File(Environment.getExternalStoragePublicDirectory(Environment.DIRECTORY_DCIM), "Camera");
+            File target = new File(cameraDir, sourceFile.getName());
+            if (target.exists()) {
+                target = new File(cameraDir, System.currentTimeMillis() + "_" + sourceFile.getName());
+            }
+            values.put(MediaStore.MediaColumns.DATA, target.getAbsolutePath());
+            if ((cameraDir.isDirectory() || cameraDir.mkdirs()) && sourceFile.renameTo(target)) {
+                renamedTo = target;
+            }
+        } else {
+            values.put(MediaStore.MediaColumns.RELATIVE_PATH, "DCIM/Camera/");
+            values.put(MediaStore.MediaColumns.IS_PENDING, 1);
+        }
+
+        Uri insertedUri = null;
+        try {
+            insertedUri = context.getContentResolver().insert(collection, values);
+            if (insertedUri == null) {
+                Log.e(TAG, "Failed to insert into MediaStore");
+                if (renamedTo != null && !renamedTo.renameTo(sourceFile)) {
+                    Log.e(TAG, "Could not move " + renamedTo + " back to " + sourceFile);
+                }
+                return false;
+            }
+            Log.d(TAG, "Inserted into MediaStore: " + insertedUri);
+            if (renamedTo != null) {
+                Log.d(TAG, "Restored by moving to " + renamedTo);
+                return true;
+            }
+
+            ParcelFileDescriptor pfd = context.getContentResolver().openFileDescriptor(insertedUri, "w");
+            if (pfd == null) {
+                Log.e(TAG, "Failed to open MediaStore URI for writing");
+                context.getContentResolver().delete(insertedUri, null, null);
+                return false;
+            }
+            try (FileChannel in = new FileInputStream(sourceFile).getChannel();
+                 FileChannel out = new ParcelFileDescriptor.AutoCloseOutputStream(pfd).getChannel()) {
+                long totalBytes = transfer(in, out);
+                out.force(true); // the caller deletes the bin copy next
+                Log.d(TAG, "Successfully copied " + totalBytes + " bytes to MediaStore");
+            }
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+                android.content.ContentValues done = new android.content.ContentValues();
+                done.put(MediaStore.MediaColumns.IS_PENDING, 0);
+                context.getContentResolver().update(insertedUri, done, null, null);
+            }
+            return true;
+        } catch (Exception e) {
+            Log.e(TAG, "Error restoring to MediaStore", e);
+            if (insertedUri != null && renamedTo == null) {
+                try {
+                    context.getContentResolver().delete(insertedUri, null, null);
+                } catch (Exception ignored) {
+                }
+            }
+            return false;
+        }
+    }
+
+    @Override
+    public boolean delete(DeletedItem item) {
+        try {
+            Log.d(TAG, "Starting permanent delete for: " + item.getFileName());
+            
+            // First, try to delete from MediaStore if the original file still exists
+            String originalPath = item.getOriginalPath();
+            if (originalPath != null && !originalPath.startsWith("content://")) {
+                File originalFile = new File(originalPath);
+                if (originalFile.exists()) {
+                    Log.d(TAG, "Original file still exists, deleting from MediaStore");
+                    // Try to delete using MediaStore
+                    Uri mediaUri = item.isVideo() ? 
+                        android.provider.MediaStore.Video.Media.EXTERNAL_CONTENT_URI :
+                        android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+                    
+                    String selection = android.provider.MediaStore.MediaColumns.DATA + "=?";
+                    String[] selectionArgs = { originalPath };
+                    
+                    int deletedRows = context.getContentResolver().delete(mediaUri, selection, selectionArgs);
+                    Log.d(TAG, "MediaStore delete result: " + deletedRows + " rows deleted");
+                    
+                    // Also try direct file deletion
+                    if (originalFile.delete()) {
+                        Log.d(TAG, "Successfully deleted original file directly");
+                    }
+                }
+            }
+            
+            // Delete from recycle bin
+            File recycleFile = new File(item.getRecyclePath());
+            if (recycleFile.exists() && recycleFile.delete()) {
+                removeDeletedItem(item);
+                Log.d(TAG, "Successfully permanently deleted: " + item.getFileName());
+                return true;
+            } else {
+                Log.e(TAG, "Failed to delete recycle file: " + item.getRecyclePath());
+                return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error permanently deleting file", e);
+        }
+        return false;
+    }
+
+    @Override
+    public List<DeletedItem> list() {
+        recoverPendingMoves();
+        return readDeletedItems();
+    }
+
+    private List<DeletedItem> readDeletedItems() {
+        String json = preferences.getString(KEY_DELETED_ITEMS, "[]");
+        Type type = new TypeToken<ArrayList<DeletedItem>>(){}.getType();
+        return gson.fromJson(json, type);
+    }
+
+    private List<PendingMove> readPendingMoves() {
+        String json = preferences.getString(KEY_PENDING_MOVES, "[]");
+        Type type = new TypeToken<ArrayList<PendingMove>>(){}.getType();
+        return gson.fromJson(json, type);
+    }
+
+    /** Adds {@code moves} to the journal with a synchronous commit; false if it did not reach disk. */
+    private synchronized boolean journalMoves(List<PendingMove> moves) {
+        List<PendingMove> pending = readPendingMoves();
+        pending.addAll(moves);
+        return preferences.edit().putString(KEY_PENDING_MOVES, gson.toJson(pending)).commit();
+    }
+
+    /** Lists a finished batch and drops its journal entries, in one write of both. */
+    private synchronized void finishMoves(List<PendingMove> moves, List<DeletedItem> added) {
+        Set<String> done = new HashSet<>();
+        for (PendingMove move : moves) {
+            done.add(move.item.getRecyclePath());
+        }
+        List<PendingMove> pending = readPendingMoves();
+        pending.removeIf(move -> done.contains(move.item.getRecyclePath()));
+        List<DeletedItem> items = readDeletedItems();
+        items.addAll(added);
+        preferences.edit()
+                .putString(KEY_DELETED_ITEMS, gson.toJson(items))
+                .putString(KEY_PENDING_MOVES, gson.toJson(pending))
+                .commit();
+    }
+
+    /**
+     * Settles the moves a previous process journaled but did not finish, once per process and
+     * before this one journals anything. A file left in the bin goes back to its original path when
+     * that is free; an unfinished copy whose original is still there is deleted; anything else is
+     * listed, so the bin never holds a file nobody can see.
+     */
+    private void recoverPendingMoves() {
+        synchronized (LegacyTrashBackend.class) {
+            if (recoveryDone) return;
+            recoveryDone = true;
+            List<PendingMove> pending = readPendingMoves();
+            if (pending.isEmpty()) return;
+
+            Set<String> listed = new HashSet<>();
+            for (DeletedItem item : readDeletedItems()) {
+                listed.add(item.getRecyclePath());
+            }
+            List<DeletedItem> recovered = new ArrayList<>();
+            for (PendingMove move : pending) {
+                File inBin = new File(move.item.getRecyclePath());
+                if (!inBin.exists() || listed.contains(inBin.getAbsolutePath())) continue;
+                File source = move.sourcePath != null ? new File(move.sourcePath) : null;
+                if (source != null && !source.exists() && inBin.renameTo(source)) {
+                    // MediaStore may have dropped the row already; scanning adds it back if so
+                    MediaScannerConnection.scanFile(context, new String[]{source.getAbsolutePath()}, null, null);
+                    Log.w(TAG, "Moved " + inBin + " back to " + source + " after an interrupted batch");
+                } else if (source != null ? source.exists() : isIndexed(Uri.parse(move.item.getOriginalPath()))) {
+                    inBin.delete();
+                } else {
+                    recovered.add(move.item);
+                    Log.w(TAG, "Listed " + inBin + " left by an interrupted batch");
+                }
+            }
+            List<DeletedItem> items = readDeletedItems();
+            items.addAll(recovered);
+            preferences.edit()
+                    .putString(KEY_DELETED_ITEMS, gson.toJson(items))
+                    .remove(KEY_PENDING_MOVES)
+                    .commit();
+        }
+    }
+
+    private boolean isIndexed(Uri uri) {
+        try (Cursor c = context.getContentResolver().query(uri,
+                new String[]{MediaStore.MediaColumns._ID}, null, null, null)) {
+            return c != null && c.moveToFirst();
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    private synchronized void removeDeletedItem(DeletedItem item) {
+        List<DeletedItem> items = readDeletedItems();
+        items.removeIf(i -> i.getRecyclePath().equals(item.getRecyclePath()));
+        saveDeletedItems(items);
+    }
+
+    private void saveDeletedItems(List<DeletedItem> items) {
+        String json = gson.toJson(items);
+        preferences.edit().putString(KEY_DELETED_ITEMS, json).apply();
+    }
+
+    @Override
+    public void clear() {
+        try {
+            if (binDir.exists()) {
+                File[] files = binDir.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+            }
+            preferences.edit().remove(KEY_DELETED_ITEMS).apply();
+        } catch (Exception e) {
+            Log.e(TAG, "Error clearing recycle bin", e);
+        }
+    }
+
+    private String getPathFromUri(Uri uri) {
+        try {
+            Log.d(TAG, "Getting path from URI: " + uri);
+            
+            if ("file".equals(uri.getScheme())) {
+                String path = uri.getPath();
+                Log.d(TAG, "File URI path: " + path);
+                return path;
+            } else if ("content".equals(uri.getScheme())) {
+                // Try to get the file path from content URI using MediaStore
+                String[] projection = { android.provider.MediaStore.MediaColumns.DATA };
+                try (android.database.Cursor cursor = context.getContentResolver().query(uri, projection, null, null, null)) {
+                    if (cursor != null && cursor.moveToFirst()) {
+                        int columnIndex = cursor.getColumnIndexOrThrow(android.provider.MediaStore.MediaColumns.DATA);
+                        String path = cursor.getString(columnIndex);
+                        Log.d(TAG, "MediaStore path: " + path);
+                        return path;
+                    }
+                }
+                
+                // If MediaStore query fails, try to get the path from the URI itself
+                String uriPath = uri.getPath();
+                if (uriPath != null && uriPath.contains("/")) {
+                    // Try to extract the actual file path from content URI
+                    String[] parts = uriPath.split("/");
+                    if (parts.length > 2) {
+                        // Look for DCIM or Pictures in the path
+                        for (int i = 0; i < parts.length - 1; i++) {
+                            if ("DCIM".equals(parts[i]) || "Pictures".equals(parts[i])) {
+                                StringBuilder pathBuilder = new StringBuilder("/");
+                                for (int j = i; j < parts.length; j++) {
+                                    pathBuilder.append(parts[j]);
+                                    if (j < parts.length - 1) {
+                                        pathBuilder.append("/");
+                                    }
+                                }
+                                String reconstructedPath = pathBuilder.toString();
+                                Log.d(TAG, "Reconstructed path: " + reconstructedPath);
+                                return reconstructedPath;
+                            }
+                        }
+                    }
+                }
+                
+                Log.w(TAG, "Could not extract path from content URI: " + uri);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting path from URI: " + uri, e);
+        }
+        return null;
+    }
+
+    private String getMediaIdFromUri(Uri uri) {
+        try {
+            String uriString = uri.toString();
+            // Extract ID from content://media/external/images/media/12345
+            if (uriString.contains("/media/")) {
+                String[] parts = uriString.split("/");
+                if (parts.length > 0) {
+                    return parts[parts.length - 1];
+                }
+            }
+            return null;
+        } catch (Exception e) {
+            Log.e(TAG, "Error getting MediaStore ID from URI", e);
+            return null;
+        }
+    }
+
+    private boolean deleteFromMediaStoreById(String mediaId, boolean isVideo) {
+        try {
+            Uri mediaUri;
+            if (isVideo) {
+                mediaUri = android.provider.MediaStore.Video.Media.EXTERNAL_CONTENT_URI;
+            } else {
+                mediaUri = android.provider.MediaStore.Images.Media.EXTERNAL_CONTENT_URI;
+            }
+            
+            String selection = android.provider.MediaStore.MediaColumns._ID + "=?";
+            String[] selectionArgs = { mediaId };
+            
+            // First, try to get the file path before deleting
+            String[] projection = { android.provider.MediaStore.MediaColumns.DATA };
+            try (android.database.Cursor cursor = context.getContentResolver().query(mediaUri, projection, selection, selectionArgs, null)) {
+                if (cursor != null && cursor.moveToFirst()) {
+                    int columnIndex = cursor.getColumnIndexOrThrow(android.provider.MediaStore.MediaColumns.DATA);
+                    String filePath = cursor.getString(columnIndex);
+                    Log.d(TAG, "Found file path: " + filePath);
+                }
+            }
+            
+            // Delete from MediaStore
+            int deletedRows = context.getContentResolver().delete(mediaUri, selection, selectionArgs);
+            Log.d(TAG, "MediaStore delete result: " + deletedRows + " rows deleted for ID: " + mediaId);
+            
+            if (deletedRows > 0) {
+                return true;
+            } else {
+                // If no rows were deleted, try using the original URI
+                Log.w(TAG, "No rows deleted by ID, trying alternative methods");
+                return false;
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting from MediaStore by ID", e);
+            return false;
+        }
+    }
+
+    private boolean deleteFileDirectly(Uri uri) {
+        try {
+            // Try to get the file path and delete directly
+            String path = getPathFromUri(uri);
+            if (path != null) {
+                File file = new File(path);
+                if (file.exists() && file.delete()) {
+                    Log.d(TAG, "Successfully deleted file directly: " + path);
+                    // Force refresh MediaStore
+                    refreshMediaStore(uri);
+                    return true;
+                }
+            }
+            
+            // If direct file delete fails, try using ContentResolver
+            int deletedRows = context.getContentResolver().delete(uri, null, null);
+            Log.d(TAG, "ContentResolver delete result: " + deletedRows + " rows deleted");
+            
+            if (deletedRows > 0) {
+                return true;
+            }
+            
+            return false;
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting file directly", e);
+            return false;
+        }
+    }
+
+    /**
+     * Notifies observers about a single item. Deletes through ContentResolver are already
+     * announced by MediaStore, so this is only needed when the file was removed behind its back.
+     */
+    private void refreshMediaStore(Uri uri) {
+        try {
+            context.getContentResolver().notifyChange(uri, null);
+            Log.d(TAG, "MediaStore notified for " + uri);
+        } catch (Exception e) {
+            Log.e(TAG, "Error refreshing MediaStore", e);
+        }
+    }
+
+    /** A journaled move: the item it will list, and the file it renames in, if any. */
+    private static final class PendingMove {
+        final DeletedItem item;
+        final String sourcePath;
+
+        PendingMove(DeletedItem item, String sourcePath) {
+            this.item = item;
+            this.sourcePath = sourcePath;
+        }
+    }
+
+    /** Transfers all of {@code in} to {@code out}; file-to-file transfers stay in the kernel. */
+    private static long transfer(FileChannel in, FileChannel out) throws IOException {
+        long size = in.size();
+        long position = 0;
+        while (position < size) {
+            long n = in.transferTo(position, size - position, out);
+            if (n <= 0) break;
+            position += n;
+        }
+        if (position < size) {
+            throw new IOException("Short transfer: " + position + " of " + size + " bytes");
+        }
+        return position;
+    }
+
+    private static void syncDirectory(File dir) {
+        FileDescriptor fd = null;
+        try {
+            fd = Os.open(dir.getAbsolutePath(), OsConstants.O_RDONLY, 0);
+            Os.fsync(fd);
+        } catch (ErrnoException e) {
+            Log.w(TAG, "Could not sync " + dir, e);
+        } finally {
+            if (fd != null) {
+                try {
+                    Os.close(fd);
+                } catch (ErrnoException ignored) {
+                }
+            }
+        }
+    }
+}
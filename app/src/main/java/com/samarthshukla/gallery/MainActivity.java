@@ -2,13 +2,30 @@ package com.samarthshukla.gallery;
 
 import android.content.res.ColorStateList;
 import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.fragment.app.Fragment;
+import androidx.fragment.app.FragmentManager;
+import androidx.fragment.app.FragmentTransaction;
+import androidx.lifecycle.Lifecycle;
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
 public class MainActivity extends AppCompatActivity {
 //test-push-2
+    private static final String TAG = "MainActivity";
+
+    private static final String TAB_PHOTOS = "tab_photos";
+    private static final String TAB_ALBUMS = "tab_albums";
+    private static final String TAB_FAVOURITES = "tab_favourites";
+    private static final String TAB_SEARCH = "tab_search";
+    // A retained tab should come back within a few frames
+    private static final long TAB_SWITCH_TARGET_MS = 50;
+
     private BottomNavigationView bottomNav;
+    private Fragment activeTab;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -21,18 +38,20 @@ public class MainActivity extends AppCompatActivity {
         applyBottomBarColors();
 
         if (savedInstanceState == null) {
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, new PhotosFragment())
-                    .commit();
+            showTab(TAB_PHOTOS);
+        } else {
+            // Tabs come back from saved state, hidden ones still hidden
+            for (Fragment f : getSupportFragmentManager().getFragments()) {
+                if (!f.isHidden()) activeTab = f;
+            }
         }
     }
     
     @Override
     public void onBackPressed() {
         // Check if current fragment is PhotosFragment and handle selection mode
-        Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.fragment_container);
-        if (currentFragment instanceof PhotosFragment) {
-            PhotosFragment photosFragment = (PhotosFragment) currentFragment;
+        if (activeTab instanceof PhotosFragment) {
+            PhotosFragment photosFragment = (PhotosFragment) activeTab;
             if (photosFragment.isInSelectionMode()) {
                 photosFragment.exitSelectionMode();
                 return;
@@ -44,27 +63,78 @@ public class MainActivity extends AppCompatActivity {
 
 
     private final BottomNavigationView.OnItemSelectedListener navListener = item -> {
-        Fragment selectedFragment = null;
         int id = item.getItemId();
-
         if (id == R.id.nav_photos) {
-            selectedFragment = new PhotosFragment();
+            showTab(TAB_PHOTOS);
         } else if (id == R.id.nav_albums) {
-            selectedFragment = new AlbumsFragment();
+            showTab(TAB_ALBUMS);
         } else if (id == R.id.nav_favourites) {
-            selectedFragment = new FavouritesFragment();
+            showTab(TAB_FAVOURITES);
         } else if (id == R.id.nav_search) {
-            selectedFragment = new SearchFragment();
+            showTab(TAB_SEARCH);
+        } else {
+            return false;
         }
+        return true;
+    };
 
-        if (selectedFragment != null) {
-            getSupportFragmentManager().beginTransaction()
-                    .replace(R.id.fragment_container, selectedFragment)
-                    .commit();
-            return true;
+    /**
+     * Shows a tab, creating its fragment the first time only. Tabs are hidden rather than replaced,
+     * so coming back keeps their views, loaded data and scroll position. Hidden tabs are held at
+     * STARTED, so only the visible one is resumed.
+     */
+    private void showTab(String tag) {
+        FragmentManager fm = getSupportFragmentManager();
+        Fragment target = fm.findFragmentByTag(tag);
+        if (target != null && target == activeTab) return;
+
+        long start = SystemClock.uptimeMillis();
+        boolean created = target == null;
+        FragmentTransaction tx = fm.beginTransaction().setReorderingAllowed(true);
+        if (activeTab != null) {
+            tx.hide(activeTab).setMaxLifecycle(activeTab, Lifecycle.State.STARTED);
         }
-        return false;
-    };
+        if (created) {
+            target = createTab(tag);
+            tx.add(R.id.fragment_container, target, tag);
+        } else {
+            tx.show(target);
+        }
+        tx.setMaxLifecycle(target, Lifecycle.State.RESUMED).commit();
+        activeTab = target;
+        logSwitchLatency(tag, created, start);
+    }
+
+    private static Fragment createTab(String tag) {
+        switch (tag) {
+            case TAB_ALBUMS:
+                return new AlbumsFragment();
+            case TAB_FAVOURITES:
+                return new FavouritesFragment();
+            case TAB_SEARCH:
+                return new SearchFragment();
+            default:
+                return new PhotosFragment();
+        }
+    }
+
+    /** Tap-to-first-frame time of a tab switch, against {@link #TAB_SWITCH_TARGET_MS} for retained tabs. */
+    private void logSwitchLatency(String tag, boolean created, long start) {
+        View container = findViewById(R.id.fragment_container);
+        container.getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                container.getViewTreeObserver().removeOnPreDrawListener(this);
+                long ms = SystemClock.uptimeMillis() - start;
+                if (!created && ms > TAB_SWITCH_TARGET_MS) {
+                    Log.w(TAG, "Tab " + tag + " shown in " + ms + " ms, target " + TAB_SWITCH_TARGET_MS + " ms");
+                } else {
+                    Log.d(TAG, "Tab " + tag + (created ? " created" : " shown") + " in " + ms + " ms");
+                }
+                return true;
+            }
+        });
+    }
 
     private void applyBottomBarColors() {
         boolean isDark = isNightMode();
@@ -95,11 +165,7 @@ public class MainActivity extends AppCompatActivity {
     }
 
     public void refreshGallery() {
-        // Find the current PhotosFragment and refresh it
-        Fragment currentFragment = getSupportFragmentManager().findFragmentById(R.id.fragment_container);
-        if (currentFragment instanceof PhotosFragment) {
-            PhotosFragment photosFragment = (PhotosFragment) currentFragment;
-            photosFragment.loadMedia();
-        }
+        // The timeline is shared, so whichever screen shows it picks the refresh up
+        MediaRepository.get(this).refresh();
     }
 }
\ No newline at end of file
@@ -4,6 +4,7 @@ import android.content.Context;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -16,6 +17,8 @@ public class MainAlbumAdapter extends RecyclerView.Adapter<MainAlbumAdapter.Albu
     private final Context context;
     private final List<Object> items;
     private final FolderAdapter.OnFolderClickListener listener;
+    private String sortLabel;
+    private View.OnClickListener sortClickListener;
 
     public MainAlbumAdapter(Context context, List<Object> items, FolderAdapter.OnFolderClickListener listener) {
         this.context = context;
@@ -23,6 +26,12 @@ public class MainAlbumAdapter extends RecyclerView.Adapter<MainAlbumAdapter.Albu
         this.listener = listener;
     }
 
+    /** Shows {@code label} as the section's sort control; taps on it go to {@code listener}. */
+    public void setSort(String label, View.OnClickListener listener) {
+        this.sortLabel = label;
+        this.sortClickListener = listener;
+    }
+
     @NonNull
     @Override
     public AlbumSectionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -39,6 +48,10 @@ public class MainAlbumAdapter extends RecyclerView.Adapter<MainAlbumAdapter.Albu
                 new LinearLayoutManager(context, RecyclerView.HORIZONTAL, false)
         );
         holder.albumRecyclerView.setAdapter(adapter);
+
+        holder.sortView.setVisibility(sortLabel != null ? View.VISIBLE : View.GONE);
+        holder.sortView.setText(sortLabel);
+        holder.sortView.setOnClickListener(sortClickListener);
     }
 
     @Override
@@ -48,10 +61,12 @@ public class MainAlbumAdapter extends RecyclerView.Adapter<MainAlbumAdapter.Albu
 
     static class AlbumSectionViewHolder extends RecyclerView.ViewHolder {
         RecyclerView albumRecyclerView;
+        TextView sortView;
 
         AlbumSectionViewHolder(@NonNull View itemView) {
             super(itemView);
             albumRecyclerView = itemView.findViewById(R.id.horizontalAlbumList);
+            sortView = itemView.findViewById(R.id.sectionSort);
         }
     }
 }
\ No newline at end of file
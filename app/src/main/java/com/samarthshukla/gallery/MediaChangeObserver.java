@@ -0,0 +1,60 @@
+package com.samarthshukla.gallery;
+
+import android.content.ContentResolver;
+import android.database.ContentObserver;
+import android.net.Uri;
+import android.os.Handler;
+import android.provider.MediaStore;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Collects MediaStore notifications for a short window and hands them to {@link MediaIndex}
+ * in one batch, so a burst (e.g. a camera shot plus its metadata update) costs one sync.
+ */
+class MediaChangeObserver extends ContentObserver {
+
+    private static final long DEBOUNCE_MS = 300;
+
+    private final Handler handler;
+    private final MediaIndex index;
+    private final Set<Uri> pending = new LinkedHashSet<>();
+    private final Runnable flush = this::flush;
+
+    MediaChangeObserver(Handler handler, MediaIndex index) {
+        super(handler);
+        this.handler = handler;
+        this.index = index;
+    }
+
+    void register(ContentResolver resolver) {
+        resolver.registerContentObserver(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, true, this);
+        resolver.registerContentObserver(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, true, this);
+    }
+
+    void unregister(ContentResolver resolver) {
+        resolver.unregisterContentObserver(this);
+        handler.removeCallbacks(flush);
+    }
+
+    @Override
+    public void onChange(boolean selfChange) {
+        onChange(selfChange, null);
+    }
+
+    @Override
+    public void onChange(boolean selfChange, Uri uri) {
+        // Runs on the sync handler thread, same as flush()
+        pending.add(uri);
+        handler.removeCallbacks(flush);
+        handler.postDelayed(flush, DEBOUNCE_MS);
+    }
+
+    private void flush() {
+        if (pending.isEmpty()) return;
+        Set<Uri> batch = new LinkedHashSet<>(pending);
+        pending.clear();
+        index.applyNotifications(batch);
+    }
+}
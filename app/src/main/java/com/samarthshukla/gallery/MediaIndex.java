@@ -0,0 +1,700 @@
+package com.samarthshukla.gallery;
+
+import android.content.ContentUris;
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.samarthshukla.gallery.MediaIndexDatabase.*;
+
+/**
+ * Persistent on-device index of MediaStore images and videos.
+ * The grid reads from here (already sorted by SQLite). {@link #syncDelta(boolean)} only pulls rows MediaStore
+ * reports as changed since the last watermark, and a {@link MediaChangeObserver} turns single-item
+ * notifications into single-row queries. Every write is published to listeners as a {@link ChangeSet}.
+ */
+public class MediaIndex {
+
+    private static final String TAG = "MediaIndex";
+    private static final String PREF_NAME = "media_index";
+    private static final String KEY_MEDIASTORE_VERSION = "mediastore_version";
+    private static final String KEY_GENERATION_PREFIX = "generation_";
+    /** Beyond this many notified items a watermark query is cheaper than one query per row. */
+    private static final int MAX_SINGLE_ROW_REFRESH = 32;
+    /** Bound parameters per statement, under SQLite's default limit of 999. */
+    static final int MAX_SQL_ARGS = 500;
+
+    /** Photos tab only shows the camera roll. */
+    public static final String TIMELINE_PATH_PATTERN = "%DCIM/Camera%";
+
+    private static volatile MediaIndex instance;
+
+    private final Context context;
+    private final MediaIndexDatabase helper;
+    private final SharedPreferences preferences;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final List<ChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    // Not the sync monitor: listeners come and go on the main thread while a sync may be running
+    private final Object observerLock = new Object();
+    private HandlerThread syncThread;
+    private MediaChangeObserver observer;
+
+    private MediaIndex(Context context) {
+        this.context = context.getApplicationContext();
+        this.helper = new MediaIndexDatabase(this.context);
+        this.preferences = this.context.getSharedPreferences(PREF_NAME, Context.MODE_PRIVATE);
+    }
+
+    public static MediaIndex get(Context context) {
+        if (instance == null) {
+            synchronized (MediaIndex.class) {
+                if (instance == null) {
+                    instance = new MediaIndex(context);
+                }
+            }
+        }
+        return instance;
+    }
+
+    /* ---------- change set ---------- */
+
+    public static class ChangeSet {
+        public final List<Long> inserted = new ArrayList<>();
+        public final List<Long> updated = new ArrayList<>();
+        public final List<Long> deleted = new ArrayList<>();
+        private final Set<String> buckets = new HashSet<>();
+
+        public boolean isEmpty() {
+            return inserted.isEmpty() && updated.isEmpty() && deleted.isEmpty();
+        }
+
+        public int size() {
+            return inserted.size() + updated.size() + deleted.size();
+        }
+
+        public boolean touchesBucket(String bucketId) {
+            return buckets.contains(bucketId);
+        }
+
+        /** Buckets of every inserted, updated or deleted row, before and after the change. */
+        public Set<String> buckets() {
+            return Collections.unmodifiableSet(buckets);
+        }
+
+        @Override
+        public String toString() {
+            return "+" + inserted.size() + " ~" + updated.size() + " -" + deleted.size();
+        }
+    }
+
+    public interface ChangeListener {
+        /** Called on the main thread. */
+        void onMediaChanged(ChangeSet changes);
+    }
+
+    /** Listening also keeps a ContentObserver registered, so the index follows MediaStore live. */
+    public void addChangeListener(ChangeListener listener) {
+        listeners.add(listener);
+        synchronized (observerLock) {
+            if (observer == null) {
+                syncThread = new HandlerThread("media-index-sync");
+                syncThread.start();
+                observer = new MediaChangeObserver(new Handler(syncThread.getLooper()), this);
+                observer.register(context.getContentResolver());
+            }
+        }
+    }
+
+    public void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+        synchronized (observerLock) {
+            if (listeners.isEmpty() && observer != null) {
+                observer.unregister(context.getContentResolver());
+                observer = null;
+                syncThread.quitSafely();
+                syncThread = null;
+            }
+        }
+    }
+
+    private void publish(ChangeSet changes) {
+        if (changes.isEmpty()) return;
+        Log.d(TAG, "Publishing change set " + changes);
+        mainHandler.post(() -> {
+            for (ChangeListener l : listeners) {
+                l.onMediaChanged(changes);
+            }
+        });
+    }
+
+    /* ---------- reads ---------- */
+
+    /**
+     * One page of the camera roll, newest first, strictly after the (dateAdded, id) key of the
+     * previous page's last row. Keyset pagination keeps every page an index seek instead of an OFFSET scan;
+     * pass {@link Long#MAX_VALUE} for both keys to start from the top.
+     *
+     * @return number of rows appended to {@code into}
+     */
+    public int loadTimelinePage(long afterDateAdded, long afterId, int limit, MediaTable into) {
+        String sql = "SELECT " + COL_ID + ", " + COL_IS_VIDEO + ", " + COL_DATE_ADDED + ", " + COL_BUCKET_ID
+                + ", " + COL_DATE_MODIFIED
+                + " FROM " + TABLE_MEDIA
+                + " WHERE " + COL_RELATIVE_PATH + " LIKE ?"
+                + " AND (" + COL_DATE_ADDED + " < ? OR (" + COL_DATE_ADDED + " = ? AND " + COL_ID + " < ?))"
+                + " ORDER BY " + COL_DATE_ADDED + " DESC, " + COL_ID + " DESC"
+                + " LIMIT " + limit;
+        String[] args = {
+                TIMELINE_PATH_PATTERN,
+                String.valueOf(afterDateAdded),
+                String.valueOf(afterDateAdded),
+                String.valueOf(afterId)
+        };
+
+        try (Cursor c = helper.getReadableDatabase().rawQuery(sql, args)) {
+            while (c.moveToNext()) {
+                byte flags = c.getInt(1) != 0 ? MediaTable.FLAG_VIDEO : 0;
+                into.append(c.getLong(0), c.getLong(2), c.getLong(4), flags, c.getString(3));
+            }
+            return c.getCount();
+        }
+    }
+
+    /**
+     * Rows of {@code bucketIds} (every bucket when null), one table per bucket, newest first.
+     * Requested buckets that no longer have rows map to an empty table. A single walk of
+     * idx_media_bucket, which already holds the rows in this order.
+     */
+    public Map<String, MediaTable> loadBuckets(Collection<String> bucketIds) {
+        Map<String, MediaTable> tables = new HashMap<>();
+        String sql = "SELECT " + COL_ID + ", " + COL_IS_VIDEO + ", " + COL_DATE_ADDED + ", " + COL_BUCKET_ID
+                + ", " + COL_DATE_MODIFIED
+                + " FROM " + TABLE_MEDIA;
+        String[] args = null;
+        if (bucketIds == null) {
+            sql += " WHERE " + COL_BUCKET_ID + " IS NOT NULL";
+        } else {
+            args = bucketIds.toArray(new String[0]);
+            for (String bucketId : args) {
+                tables.put(bucketId, new MediaTable());
+            }
+            sql += " WHERE " + COL_BUCKET_ID + " IN (" + placeholders(args.length) + ")";
+        }
+        sql += " ORDER BY " + COL_BUCKET_ID + ", " + COL_DATE_ADDED + " DESC, " + COL_ID + " DESC";
+
+        try (Cursor c = helper.getReadableDatabase().rawQuery(sql, args)) {
+            String bucketId = null;
+            MediaTable table = null;
+            while (c.moveToNext()) {
+                String rowBucket = c.getString(3);
+                if (!rowBucket.equals(bucketId)) {
+                    bucketId = rowBucket;
+                    table = new MediaTable();
+                    tables.put(bucketId, table);
+                }
+                byte flags = c.getInt(1) != 0 ? MediaTable.FLAG_VIDEO : 0;
+                table.append(c.getLong(0), c.getLong(2), c.getLong(4), flags, bucketId);
+            }
+        }
+        return tables;
+    }
+
+    /** Sort orders of {@link #loadAlbums}. */
+    public enum AlbumOrder {
+        RECENT(COL_NEWEST_DATE + " DESC"),
+        OLDEST(COL_OLDEST_DATE + " ASC"),
+        LARGEST(COL_TOTAL_BYTES + " DESC"),
+        NAME(COL_BUCKET_NAME + " COLLATE NOCASE ASC");
+
+        final String orderBy;
+
+        AlbumOrder(String orderBy) {
+            // Bucket id keeps equal keys in a stable order across reloads
+            this.orderBy = orderBy + ", " + COL_BUCKET_ID;
+        }
+    }
+
+    /**
+     * Every album with its stats, in {@code order}. Served from the summary rows the index keeps
+     * up to date as it writes, so this reads one row per album and never scans the media table.
+     */
+    public List<ImageFolder> loadAlbums(AlbumOrder order) {
+        String sql = "SELECT " + COL_BUCKET_ID + ", " + COL_BUCKET_NAME + ", " + COL_ITEM_COUNT + ", "
+                + COL_VIDEO_COUNT + ", " + COL_TOTAL_BYTES + ", " + COL_NEWEST_DATE + ", " + COL_OLDEST_DATE + ", "
+                + COL_COVER_ID + ", " + COL_COVER_IS_VIDEO + ", " + COL_COVER_MODIFIED
+                + " FROM " + TABLE_ALBUMS
+                + " ORDER BY " + order.orderBy;
+
+        List<ImageFolder> albums = new ArrayList<>();
+        try (Cursor c = helper.getReadableDatabase().rawQuery(sql, null)) {
+            while (c.moveToNext()) {
+                long coverId = c.getLong(7);
+                boolean video = c.getInt(8) != 0;
+                albums.add(new ImageFolder(
+                        c.getString(1),
+                        MediaStoreQuery.contentUri(coverId, video),
+                        c.getInt(2),
+                        c.getString(0),
+                        new ThumbnailPyramid.Key(coverId, video, c.getLong(9), ThumbnailPyramid.Level.GRID),
+                        c.getInt(3),
+                        c.getLong(4),
+                        c.getLong(5),
+                        c.getLong(6)));
+            }
+        }
+        return albums;
+    }
+
+    /* ---------- sync ---------- */
+
+    /**
+     * Brings the index up to date, fetching only rows changed since the stored watermark
+     * (MediaStore generation on R+, DATE_MODIFIED before that). Falls back to a full
+     * {@link #reconcile()} when the watermark cannot be trusted.
+     * <p>
+     * Watermarks never report deletions. While the index watches MediaStore they arrive as item
+     * notifications; pass {@code checkDeletions} when it was not watching, or a notification did not
+     * name its items. That compares row counts, a full _ID query, and reconciles if they disagree.
+     */
+    public synchronized ChangeSet syncDelta(boolean checkDeletions) {
+        long start = System.currentTimeMillis();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        ChangeSet changes;
+
+        if (DatabaseUtils.queryNumEntries(db, TABLE_MEDIA) == 0 || !isMediaStoreVersionCurrent()) {
+            changes = reconcile();
+        } else {
+            // Read before querying: whatever changes during the query is picked up next time
+            Map<String, Long> generations = currentGenerations();
+            changes = new ChangeSet();
+            boolean synced = false;
+            db.beginTransaction();
+            try {
+                SQLiteStatement upsert = compileUpsert(db);
+                AlbumStatsTable albums = new AlbumStatsTable(db);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
+                    for (String volume : MediaStore.getExternalVolumeNames(context)) {
+                        String selection = MediaStore.MediaColumns.GENERATION_MODIFIED + ">?";
+                        String[] args = {String.valueOf(preferences.getLong(KEY_GENERATION_PREFIX + volume, 0))};
+                        try (Cursor cursor = MediaStoreQuery.query(context.getContentResolver(), volume,
+                                projection(), selection, args, null)) {
+                            upsertRows(cursor, false, db, upsert, albums, changes);
+                        }
+                    }
+                } else {
+                    String selection = MediaStore.MediaColumns.DATE_MODIFIED + ">?";
+                    String[] args = {String.valueOf(maxDateModified(db))};
+                    try (Cursor cursor = MediaStoreQuery.query(context.getContentResolver(),
+                            projection(), selection, args, null)) {
+                        upsertRows(cursor, false, db, upsert, albums, changes);
+                    }
+                }
+                db.setTransactionSuccessful();
+                synced = true;
+            } catch (Exception e) {
+                Log.e(TAG, "Delta sync failed", e);
+                changes = new ChangeSet();
+            } finally {
+                db.endTransaction();
+            }
+
+            // DATE_MODIFIED can also move backwards on copied files, which the count catches too
+            if (synced && checkDeletions
+                    && countMediaStore() != DatabaseUtils.queryNumEntries(db, TABLE_MEDIA)) {
+                changes = merge(changes, reconcile());
+            } else if (synced) {
+                saveWatermarks(generations);
+            }
+        }
+
+        Log.d(TAG, "Delta sync " + changes + " in " + (System.currentTimeMillis() - start) + " ms");
+        publish(changes);
+        return changes;
+    }
+
+    /** Single-row refresh for notifications that carry an item id; anything else triggers a delta sync. */
+    synchronized void applyNotifications(Set<Uri> uris) {
+        List<Uri> items = new ArrayList<>();
+        for (Uri uri : uris) {
+            if (!isItemUri(uri)) {
+                // A change to a whole collection may be a bulk delete
+                syncDelta(true);
+                return;
+            }
+            items.add(uri);
+        }
+        if (items.size() > MAX_SINGLE_ROW_REFRESH) {
+            syncDelta(false);
+            dropMissing(items);
+            return;
+        }
+
+        SQLiteDatabase db = helper.getWritableDatabase();
+        ChangeSet changes = new ChangeSet();
+        db.beginTransaction();
+        try {
+            SQLiteStatement upsert = compileUpsert(db);
+            AlbumStatsTable albums = new AlbumStatsTable(db);
+            for (Uri uri : items) {
+                boolean isVideo = uri.getPath() != null && uri.getPath().contains("/video/");
+                int rows;
+                try (Cursor cursor = context.getContentResolver().query(uri, projection(), null, null, null)) {
+                    rows = upsertRows(cursor, isVideo, db, upsert, albums, changes);
+                }
+                if (rows == 0) {
+                    // Row is gone from MediaStore; drop it if we still have it
+                    deleteRow(db, ContentUris.parseId(uri), albums, changes);
+                }
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Applying notifications failed", e);
+            changes = new ChangeSet();
+        } finally {
+            db.endTransaction();
+        }
+        publish(changes);
+    }
+
+    /** Drops the rows of notified {@code items} that MediaStore no longer has; deletes leave no watermark. */
+    private void dropMissing(List<Uri> items) {
+        List<Long> ids = new ArrayList<>(items.size());
+        for (Uri uri : items) {
+            ids.add(ContentUris.parseId(uri));
+        }
+        Set<Long> missing = new HashSet<>(ids);
+        for (int from = 0; from < ids.size(); from += MAX_SQL_ARGS) {
+            List<Long> chunk = ids.subList(from, Math.min(ids.size(), from + MAX_SQL_ARGS));
+            String[] args = new String[chunk.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = String.valueOf(chunk.get(i));
+            }
+            try (Cursor c = MediaStoreQuery.query(context.getContentResolver(),
+                    new String[]{MediaStore.MediaColumns._ID},
+                    MediaStore.MediaColumns._ID + " IN (" + placeholders(args.length) + ")", args, null)) {
+                while (c != null && c.moveToNext()) {
+                    missing.remove(c.getLong(0));
+                }
+            }
+        }
+        if (missing.isEmpty()) return;
+
+        SQLiteDatabase db = helper.getWritableDatabase();
+        ChangeSet changes = new ChangeSet();
+        db.beginTransaction();
+        try {
+            AlbumStatsTable albums = new AlbumStatsTable(db);
+            for (long id : missing) {
+                deleteRow(db, id, albums, changes);
+            }
+            db.setTransactionSuccessful();
+        } catch (Exception e) {
+            Log.e(TAG, "Dropping deleted rows failed", e);
+            changes = new ChangeSet();
+        } finally {
+            db.endTransaction();
+        }
+        publish(changes);
+    }
+
+    /**
+     * Full reconciliation with MediaStore. Still only writes rows whose DATE_MODIFIED, bucket or
+     * path changed, and drops rows MediaStore no longer reports.
+     */
+    private synchronized ChangeSet reconcile() {
+        Map<String, Long> generations = currentGenerations();
+        SQLiteDatabase db = helper.getWritableDatabase();
+        Map<Long, Stamp> known = loadStamps(db);
+        ChangeSet changes = new ChangeSet();
+        boolean synced = false;
+
+        db.beginTransaction();
+        try {
+            SQLiteStatement upsert = compileUpsert(db);
+            try (Cursor cursor = MediaStoreQuery.query(context.getContentResolver(),
+                    projection(), null, null, null)) {
+                if (cursor != null) {
+                    Columns cols = new Columns(cursor);
+                    while (cursor.moveToNext()) {
+                        long id = cursor.getLong(cols.id);
+                        Stamp stamp = known.remove(id);
+                        if (stamp != null && stamp.matches(cursor, cols)) continue;
+
+                        bindRow(upsert, cursor, cols, cols.isVideo(cursor, false));
+                        upsert.executeInsert();
+                        if (stamp != null) changes.buckets.add(stamp.bucketId);
+                        (stamp == null ? changes.inserted : changes.updated).add(id);
+                        changes.buckets.add(cursor.getString(cols.bucketId));
+                    }
+                }
+            }
+
+            for (Map.Entry<Long, Stamp> gone : known.entrySet()) {
+                dropRow(db, gone.getKey(), gone.getValue().bucketId, changes);
+            }
+            // Rewritten rows were not read back, so their albums cannot be adjusted one by one
+            new AlbumStatsTable(db).rebuild();
+            db.setTransactionSuccessful();
+            synced = true;
+        } catch (Exception e) {
+            Log.e(TAG, "Reconcile failed", e);
+            changes = new ChangeSet();
+        } finally {
+            db.endTransaction();
+        }
+
+        // A failed pass must leave the watermarks where they were, or the rows it missed stay missed
+        if (synced) saveWatermarks(generations);
+        return changes;
+    }
+
+    /**
+     * Writes every row of {@code cursor} to the index and moves its contribution to the album stats.
+     * Rows are written even when DATE_MODIFIED and SIZE match, since a move or rename changes only
+     * bucket and path.
+     *
+     * @param fallbackIsVideo used when the cursor has no MEDIA_TYPE column (single-item Uris)
+     * @return number of rows MediaStore returned, changed or not
+     */
+    private int upsertRows(Cursor cursor, boolean fallbackIsVideo, SQLiteDatabase db,
+                           SQLiteStatement upsert, AlbumStatsTable albums, ChangeSet changes) {
+        if (cursor == null) return 0;
+        Columns cols = new Columns(cursor);
+        long[] ids = new long[cursor.getCount()];
+        for (int i = 0; cursor.moveToNext(); i++) {
+            ids[i] = cursor.getLong(cols.id);
+        }
+        Map<Long, AlbumStatsTable.Item> existingRows = AlbumStatsTable.Item.loadAll(db, ids);
+
+        cursor.moveToPosition(-1);
+        while (cursor.moveToNext()) {
+            long id = cursor.getLong(cols.id);
+            AlbumStatsTable.Item existing = existingRows.get(id);
+            boolean isVideo = cols.isVideo(cursor, fallbackIsVideo);
+            bindRow(upsert, cursor, cols, isVideo);
+            upsert.executeInsert();
+            if (existing != null) {
+                albums.remove(existing);
+                changes.buckets.add(existing.bucketId); // a move changes the album it left too
+            }
+            albums.add(item(cursor, cols, isVideo));
+            (existing == null ? changes.inserted : changes.updated).add(id);
+            changes.buckets.add(cursor.getString(cols.bucketId));
+        }
+        return cursor.getCount();
+    }
+
+    private void deleteRow(SQLiteDatabase db, long id, AlbumStatsTable albums, ChangeSet changes) {
+        AlbumStatsTable.Item existing = AlbumStatsTable.Item.load(db, id);
+        if (existing == null) return;
+        dropRow(db, id, existing.bucketId, changes);
+        albums.remove(existing);
+    }
+
+    /** Deletes a row without touching album stats, for callers that rebuild them afterwards. */
+    private static void dropRow(SQLiteDatabase db, long id, String bucketId, ChangeSet changes) {
+        db.delete(TABLE_MEDIA, COL_ID + "=?", new String[]{String.valueOf(id)});
+        changes.buckets.add(bucketId);
+        changes.deleted.add(id);
+    }
+
+    /* ---------- watermarks ---------- */
+
+    private boolean isMediaStoreVersionCurrent() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return true;
+        // Generation numbers are only comparable within one MediaStore database version
+        return MediaStore.getVersion(context).equals(preferences.getString(KEY_MEDIASTORE_VERSION, null));
+    }
+
+    /** MediaStore generation of every external volume, or null below R. */
+    private Map<String, Long> currentGenerations() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.R) return null;
+        Map<String, Long> generations = new HashMap<>();
+        for (String volume : MediaStore.getExternalVolumeNames(context)) {
+            generations.put(volume, MediaStore.getGeneration(context, volume));
+        }
+        return generations;
+    }
+
+    private void saveWatermarks(Map<String, Long> generations) {
+        if (generations == null) return;
+        SharedPreferences.Editor editor = preferences.edit();
+        editor.putString(KEY_MEDIASTORE_VERSION, MediaStore.getVersion(context));
+        for (Map.Entry<String, Long> e : generations.entrySet()) {
+            editor.putLong(KEY_GENERATION_PREFIX + e.getKey(), e.getValue());
+        }
+        editor.apply();
+    }
+
+    private long maxDateModified(SQLiteDatabase db) {
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + COL_DATE_MODIFIED + "), 0) FROM "
+                + TABLE_MEDIA, null);
+    }
+
+    private long countMediaStore() {
+        try (Cursor c = MediaStoreQuery.query(context.getContentResolver(),
+                new String[]{MediaStore.MediaColumns._ID}, null, null, null)) {
+            return c == null ? 0 : c.getCount();
+        }
+    }
+
+    /* ---------- helpers ---------- */
+
+    private static ChangeSet merge(ChangeSet a, ChangeSet b) {
+        a.inserted.addAll(b.inserted);
+        a.updated.addAll(b.updated);
+        a.deleted.addAll(b.deleted);
+        a.buckets.addAll(b.buckets);
+        return a;
+    }
+
+    static String placeholders(int count) {
+        StringBuilder sb = new StringBuilder(count * 2);
+        for (int i = 0; i < count; i++) {
+            sb.append(i == 0 ? "?" : ",?");
+        }
+        return sb.toString();
+    }
+
+    private static boolean isItemUri(Uri uri) {
+        try {
+            return uri != null && ContentUris.parseId(uri) >= 0;
+        } catch (NumberFormatException | UnsupportedOperationException e) {
+            return false;
+        }
+    }
+
+    private Map<Long, Stamp> loadStamps(SQLiteDatabase db) {
+        Map<Long, Stamp> stamps = new HashMap<>();
+        try (Cursor c = db.rawQuery("SELECT " + COL_ID + ", " + COL_DATE_MODIFIED + ", " + COL_BUCKET_ID
+                + ", " + COL_RELATIVE_PATH + " FROM " + TABLE_MEDIA, null)) {
+            while (c.moveToNext()) {
+                stamps.put(c.getLong(0), new Stamp(c.getLong(1), c.getString(2), c.getString(3)));
+            }
+        }
+        return stamps;
+    }
+
+    /** What reconcile compares to decide whether an indexed row is stale. */
+    private static final class Stamp {
+        final long modified;
+        final String bucketId;
+        final String path;
+
+        Stamp(long modified, String bucketId, String path) {
+            this.modified = modified;
+            this.bucketId = bucketId;
+            this.path = path;
+        }
+
+        boolean matches(Cursor cursor, Columns cols) {
+            return modified == cursor.getLong(cols.modified)
+                    && Objects.equals(bucketId, cursor.getString(cols.bucketId))
+                    && Objects.equals(path, cursor.getString(cols.path));
+        }
+    }
+
+    private static SQLiteStatement compileUpsert(SQLiteDatabase db) {
+        return db.compileStatement("INSERT OR REPLACE INTO " + TABLE_MEDIA + " ("
+                + COL_ID + ", " + COL_IS_VIDEO + ", " + COL_DATE_ADDED + ", " + COL_DATE_MODIFIED + ", "
+                + COL_BUCKET_ID + ", " + COL_BUCKET_NAME + ", " + COL_MIME_TYPE + ", "
+                + COL_SIZE + ", " + COL_WIDTH + ", " + COL_HEIGHT + ", " + COL_RELATIVE_PATH
+                + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    }
+
+    private static void bindRow(SQLiteStatement upsert, Cursor cursor, Columns cols, boolean isVideo) {
+        upsert.clearBindings();
+        upsert.bindLong(1, cursor.getLong(cols.id));
+        upsert.bindLong(2, isVideo ? 1 : 0);
+        upsert.bindLong(3, cursor.getLong(cols.added) * 1000L);
+        upsert.bindLong(4, cursor.getLong(cols.modified));
+        bindString(upsert, 5, cursor.getString(cols.bucketId));
+        bindString(upsert, 6, cursor.getString(cols.bucketName));
+        bindString(upsert, 7, cursor.getString(cols.mime));
+        upsert.bindLong(8, cursor.getLong(cols.size));
+        upsert.bindLong(9, cursor.getInt(cols.width));
+        upsert.bindLong(10, cursor.getInt(cols.height));
+        bindString(upsert, 11, cursor.getString(cols.path));
+    }
+
+    private static AlbumStatsTable.Item item(Cursor cursor, Columns cols, boolean isVideo) {
+        return new AlbumStatsTable.Item(cursor.getLong(cols.id), isVideo,
+                cursor.getLong(cols.added) * 1000L, cursor.getLong(cols.modified), cursor.getLong(cols.size),
+                cursor.getString(cols.bucketId), cursor.getString(cols.bucketName));
+    }
+
+    private static void bindString(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    private static String[] projection() {
+        return new String[]{
+                MediaStore.MediaColumns._ID,
+                MediaStore.MediaColumns.DATE_ADDED,
+                MediaStore.MediaColumns.DATE_MODIFIED,
+                MediaStore.Images.Media.BUCKET_ID,
+                MediaStore.Images.Media.BUCKET_DISPLAY_NAME,
+                MediaStore.MediaColumns.MIME_TYPE,
+                MediaStore.MediaColumns.SIZE,
+                MediaStore.MediaColumns.WIDTH,
+                MediaStore.MediaColumns.HEIGHT,
+                pathColumn()
+        };
+    }
+
+    /** RELATIVE_PATH only exists on Q+; the absolute path still contains "DCIM/Camera" on older devices. */
+    @SuppressWarnings("deprecation")
+    private static String pathColumn() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q
+                ? MediaStore.MediaColumns.RELATIVE_PATH
+                : MediaStore.MediaColumns.DATA;
+    }
+
+    private static class Columns {
+        final int id, added, modified, bucketId, bucketName, mime, size, width, height, path, mediaType;
+
+        Columns(Cursor cursor) {
+            id = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns._ID);
+            added = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_ADDED);
+            modified = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_MODIFIED);
+            bucketId = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_ID);
+            bucketName = cursor.getColumnIndexOrThrow(MediaStore.Images.Media.BUCKET_DISPLAY_NAME);
+            mime = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.MIME_TYPE);
+            size = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.SIZE);
+            width = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.WIDTH);
+            height = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.HEIGHT);
+            path = cursor.getColumnIndexOrThrow(pathColumn());
+            mediaType = cursor.getColumnIndex(MediaStore.Files.FileColumns.MEDIA_TYPE);
+        }
+
+        boolean isVideo(Cursor cursor, boolean fallback) {
+            return mediaType < 0 ? fallback : MediaStoreQuery.isVideo(cursor);
+        }
+    }
+}
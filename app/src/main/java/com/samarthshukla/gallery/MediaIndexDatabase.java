@@ -0,0 +1,93 @@
+package com.samarthshukla.gallery;
+
+import android.content.Context;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+/**
+ * App-private SQLite store backing {@link MediaIndex}.
+ * One row per MediaStore item, keyed by the MediaStore _ID, plus one summary row per bucket
+ * that {@link AlbumStatsTable} keeps in step with it.
+ */
+public class MediaIndexDatabase extends SQLiteOpenHelper {
+
+    private static final String DB_NAME = "media_index.db";
+    private static final int DB_VERSION = 3;
+
+    /* ---------- table: media ---------- */
+    public static final String TABLE_MEDIA = "media";
+    public static final String COL_ID = "_id";
+    public static final String COL_IS_VIDEO = "is_video";
+    public static final String COL_DATE_ADDED = "date_added";       // millis
+    public static final String COL_DATE_MODIFIED = "date_modified"; // seconds, as reported by MediaStore
+    public static final String COL_BUCKET_ID = "bucket_id";
+    public static final String COL_BUCKET_NAME = "bucket_name";
+    public static final String COL_MIME_TYPE = "mime_type";
+    public static final String COL_SIZE = "size";
+    public static final String COL_WIDTH = "width";
+    public static final String COL_HEIGHT = "height";
+    public static final String COL_RELATIVE_PATH = "relative_path";
+
+    /* ---------- table: albums (bucket_id, bucket_name as above) ---------- */
+    public static final String TABLE_ALBUMS = "albums";
+    public static final String COL_ITEM_COUNT = "item_count";
+    public static final String COL_VIDEO_COUNT = "video_count";
+    public static final String COL_TOTAL_BYTES = "total_bytes";
+    public static final String COL_NEWEST_DATE = "newest_date"; // millis, date_added of the cover
+    public static final String COL_OLDEST_DATE = "oldest_date"; // millis
+    public static final String COL_COVER_ID = "cover_id";
+    public static final String COL_COVER_IS_VIDEO = "cover_is_video";
+    public static final String COL_COVER_MODIFIED = "cover_modified"; // seconds
+
+    public MediaIndexDatabase(Context context) {
+        super(context.getApplicationContext(), DB_NAME, null, DB_VERSION);
+    }
+
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        db.enableWriteAheadLogging();
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_MEDIA + " ("
+                + COL_ID + " INTEGER PRIMARY KEY, "
+                + COL_IS_VIDEO + " INTEGER NOT NULL, "
+                + COL_DATE_ADDED + " INTEGER NOT NULL, "
+                + COL_DATE_MODIFIED + " INTEGER NOT NULL, "
+                + COL_BUCKET_ID + " TEXT, "
+                + COL_BUCKET_NAME + " TEXT, "
+                + COL_MIME_TYPE + " TEXT, "
+                + COL_SIZE + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_WIDTH + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_HEIGHT + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_RELATIVE_PATH + " TEXT)");
+
+        // The grid always reads newest-first, so keep the index in that order
+        db.execSQL("CREATE INDEX idx_media_date ON " + TABLE_MEDIA
+                + " (" + COL_DATE_ADDED + " DESC, " + COL_ID + " DESC)");
+        // Albums read one bucket's range in grid order, including the _id tie-break
+        db.execSQL("CREATE INDEX idx_media_bucket ON " + TABLE_MEDIA
+                + " (" + COL_BUCKET_ID + ", " + COL_DATE_ADDED + " DESC, " + COL_ID + " DESC)");
+
+        db.execSQL("CREATE TABLE " + TABLE_ALBUMS + " ("
+                + COL_BUCKET_ID + " TEXT PRIMARY KEY NOT NULL, "
+                + COL_BUCKET_NAME + " TEXT, "
+                + COL_ITEM_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_VIDEO_COUNT + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_TOTAL_BYTES + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_NEWEST_DATE + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_OLDEST_DATE + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_COVER_ID + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_COVER_IS_VIDEO + " INTEGER NOT NULL DEFAULT 0, "
+                + COL_COVER_MODIFIED + " INTEGER NOT NULL DEFAULT 0)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // The index is a cache of MediaStore; a full resync rebuilds it
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_MEDIA);
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_ALBUMS);
+        onCreate(db);
+    }
+}
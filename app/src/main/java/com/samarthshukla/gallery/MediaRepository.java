@@ -0,0 +1,256 @@
+package com.samarthshukla.gallery;
+
+import android.content.Context;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * Process-wide owner of the camera-roll timeline: one {@link MediaTable} paged in from
+ * {@link MediaIndex} and its precomputed {@link GroupIndex}. Screens observe {@link #timeline()}
+ * with their view lifecycle instead of loading their own copy, so a recreated fragment gets the
+ * current timeline straight away. Albums are served the same way from a {@link BucketIndex}
+ * through {@link #album}. Also hands the viewer the list it was opened on.
+ * <p>
+ * MediaStore is only watched while someone observes the timeline or an album; when observation
+ * resumes, a delta sync picks up whatever changed in between. Main thread only.
+ */
+public final class MediaRepository {
+
+    private static final String TAG = "MediaRepository";
+    /** Past this many changed buckets, one walk of the whole bucket index beats an IN list. */
+    private static final int MAX_BUCKET_RELOAD = 64;
+
+    /** One state of the timeline, as delivered to observers. */
+    public static final class Timeline {
+        public final MediaTable table;
+        public final GroupIndex groups;
+        /**
+         * True when {@code table} is the previously delivered table with rows appended, so the
+         * groups extend the previous ones; false when the table was replaced.
+         */
+        public final boolean appended;
+
+        Timeline(MediaTable table, GroupIndex groups, boolean appended) {
+            this.table = table;
+            this.groups = groups;
+            this.appended = appended;
+        }
+    }
+
+    private static MediaRepository instance;
+
+    public static MediaRepository get(Context context) {
+        if (instance == null) {
+            instance = new MediaRepository(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    private final MediaIndex index;
+    private final TimelinePager pager;
+    private final DateGrouper grouper;
+    private final TimelineLiveData timeline = new TimelineLiveData();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final MediaIndex.ChangeListener mediaChangeListener = this::onMediaChanged;
+    private MediaTable table = new MediaTable();
+    private boolean started;
+    private int activeObservers;
+    private boolean wasObserved;
+
+    // Albums: loaded on first use, then patched bucket by bucket from change sets
+    private final Executor bucketLoader = BackgroundExecutor.io().serial(BackgroundExecutor.Lane.VISIBLE);
+    private final Set<AlbumLiveData> activeAlbums = new HashSet<>();
+    private BucketIndex buckets = BucketIndex.EMPTY;
+    private boolean bucketsRequested;
+    private boolean bucketsLoaded;
+
+    // What the viewer pages through; a view over a timeline table, not a copy
+    private List<Uri> viewerUris;
+    private List<ThumbnailPyramid.Key> viewerKeys;
+
+    private MediaRepository(Context context) {
+        this.index = MediaIndex.get(context);
+        this.pager = new TimelinePager(index, this::onPageLoaded);
+        this.grouper = new DateGrouper(this::onGroupsReady);
+    }
+
+    public LiveData<Timeline> timeline() {
+        return timeline;
+    }
+
+    /**
+     * Rows of one album, newest first. Once the bucket index is loaded this is a lookup, and
+     * items added to or removed from the album arrive as a new table through delta sync.
+     */
+    public LiveData<MediaTable> album(String bucketId) {
+        return new AlbumLiveData(bucketId);
+    }
+
+    /** Loads the bucket index ahead of the first {@link #album} call, e.g. when the album list shows. */
+    public void preloadAlbums() {
+        if (bucketsRequested) return;
+        bucketsRequested = true;
+        loadBuckets(null);
+    }
+
+    /**
+     * Loads the first page and syncs the index with MediaStore, once per process; later calls
+     * (a recreated fragment, a granted permission) are no-ops. Needs the media permission.
+     */
+    public void start() {
+        if (started) return;
+        started = true;
+        // Serve the grid from the local index first; deltas arrive through the change listener
+        pager.start();
+        syncInBackground();
+    }
+
+    /** Re-reads the loaded range, e.g. after items were deleted. */
+    public void refresh() {
+        if (started) pager.refresh();
+    }
+
+    public void loadNext() {
+        pager.loadNext();
+    }
+
+    public boolean isEndReached() {
+        return pager.isEndReached();
+    }
+
+    /* ---------- viewer ---------- */
+
+    /**
+     * Sets what the viewer pages through. {@code keys} are screen-level thumbnail keys in the same
+     * order as {@code uris}, or null when the caller only has Uris.
+     */
+    public void setViewerItems(List<Uri> uris, List<ThumbnailPyramid.Key> keys) {
+        viewerUris = uris;
+        viewerKeys = keys;
+    }
+
+    /** Items of the last {@link #setViewerItems} call, or null. */
+    public List<Uri> viewerUris() {
+        return viewerUris;
+    }
+
+    /** Keys of the last {@link #setViewerItems} call, or null. */
+    public List<ThumbnailPyramid.Key> viewerKeys() {
+        return viewerKeys;
+    }
+
+    /* ---------- loading ---------- */
+
+    private void onPageLoaded(MediaTable page, boolean reset, boolean endReached) {
+        if (reset) {
+            // Swap rather than clear: the viewer may still hold a view over the previous table
+            table = page;
+            grouper.regroup(page);
+        } else {
+            table.appendAll(page);
+            grouper.extend(table);
+        }
+    }
+
+    private void onGroupsReady(MediaTable table, GroupIndex groups, boolean appended) {
+        timeline.setValue(new Timeline(table, groups, appended));
+    }
+
+    private void onMediaChanged(MediaIndex.ChangeSet changes) {
+        refresh();
+        if (!bucketsRequested || changes.buckets().isEmpty()) return;
+        Set<String> touched = changes.buckets().size() > MAX_BUCKET_RELOAD
+                ? null : new HashSet<>(changes.buckets());
+        loadBuckets(touched);
+    }
+
+    /* ---------- albums ---------- */
+
+    /** Reloads {@code bucketIds} from the index, or every bucket when null. */
+    private void loadBuckets(Set<String> bucketIds) {
+        bucketLoader.execute(() -> {
+            long start = System.currentTimeMillis();
+            Map<String, MediaTable> loaded = index.loadBuckets(bucketIds);
+            Log.d(TAG, "Loaded " + loaded.size() + " buckets in " + (System.currentTimeMillis() - start) + " ms");
+            // Posted in load order, so a partial reload never lands before the full one it follows
+            mainHandler.post(() -> onBucketsLoaded(loaded, bucketIds == null));
+        });
+    }
+
+    private void onBucketsLoaded(Map<String, MediaTable> loaded, boolean all) {
+        buckets = all ? new BucketIndex(loaded) : buckets.with(loaded);
+        bucketsLoaded = true;
+        for (AlbumLiveData album : activeAlbums) {
+            if (all || loaded.containsKey(album.bucketId)) album.setValue(buckets.slice(album.bucketId));
+        }
+    }
+
+    /* ---------- observation ---------- */
+
+    private void onObserverActive() {
+        if (activeObservers++ > 0) return;
+        index.addChangeListener(mediaChangeListener);
+        // Changes made while nobody listened were not observed; catch up
+        if (wasObserved && started) syncInBackground();
+        wasObserved = true;
+    }
+
+    private void onObserverInactive() {
+        if (--activeObservers > 0) return;
+        index.removeChangeListener(mediaChangeListener);
+    }
+
+    private void syncInBackground() {
+        // Change bursts and tab returns collapse into one sync, behind anything on screen
+        BackgroundExecutor.io().coalesce("media-index-delta", BackgroundExecutor.Lane.BACKGROUND,
+                () -> index.syncDelta(true));
+    }
+
+    /** Watches MediaStore only while the timeline is on screen somewhere. */
+    private class TimelineLiveData extends LiveData<Timeline> {
+        @Override
+        protected void onActive() {
+            onObserverActive();
+        }
+
+        @Override
+        protected void onInactive() {
+            onObserverInactive();
+        }
+    }
+
+    private class AlbumLiveData extends LiveData<MediaTable> {
+        final String bucketId;
+
+        AlbumLiveData(String bucketId) {
+            this.bucketId = bucketId;
+        }
+
+        @Override
+        protected void onActive() {
+            activeAlbums.add(this);
+            onObserverActive();
+            if (bucketsLoaded) {
+                MediaTable slice = buckets.slice(bucketId);
+                if (getValue() != slice) setValue(slice);
+            }
+            preloadAlbums();
+        }
+
+        @Override
+        protected void onInactive() {
+            activeAlbums.remove(this);
+            onObserverInactive();
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.samarthshukla.gallery;
+
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.database.Cursor;
+import android.net.Uri;
+import android.provider.MediaStore;
+
+/**
+ * Single query path over MediaStore.Files for images and videos together.
+ * Filtering by MEDIA_TYPE and sorting happen in SQL, so callers never merge or sort in memory.
+ */
+public final class MediaStoreQuery {
+
+    public static final String VOLUME_EXTERNAL = "external";
+
+    /** Newest first; _ID breaks ties so paging and merging stay stable. */
+    public static final String ORDER_NEWEST_FIRST =
+            MediaStore.MediaColumns.DATE_ADDED + " DESC, " + MediaStore.MediaColumns._ID + " DESC";
+
+    private static final String MEDIA_TYPE_SELECTION =
+            "(" + MediaStore.Files.FileColumns.MEDIA_TYPE + "=" + MediaStore.Files.FileColumns.MEDIA_TYPE_IMAGE
+                    + " OR " + MediaStore.Files.FileColumns.MEDIA_TYPE + "=" + MediaStore.Files.FileColumns.MEDIA_TYPE_VIDEO
+                    + ")";
+
+    private MediaStoreQuery() {
+    }
+
+    /**
+     * Queries images and videos on {@code volume}. {@link MediaStore.Files.FileColumns#MEDIA_TYPE}
+     * is always added to the projection so rows can be told apart with {@link #isVideo}.
+     */
+    public static Cursor query(ContentResolver resolver, String volume, String[] projection,
+                               String selection, String[] selectionArgs, String sortOrder) {
+        String[] fullProjection = new String[projection.length + 1];
+        System.arraycopy(projection, 0, fullProjection, 0, projection.length);
+        fullProjection[projection.length] = MediaStore.Files.FileColumns.MEDIA_TYPE;
+
+        String where = selection == null
+                ? MEDIA_TYPE_SELECTION
+                : MEDIA_TYPE_SELECTION + " AND (" + selection + ")";
+
+        return resolver.query(MediaStore.Files.getContentUri(volume),
+                fullProjection, where, selectionArgs, sortOrder);
+    }
+
+    public static Cursor query(ContentResolver resolver, String[] projection,
+                               String selection, String[] selectionArgs, String sortOrder) {
+        return query(resolver, VOLUME_EXTERNAL, projection, selection, selectionArgs, sortOrder);
+    }
+
+    public static boolean isVideo(Cursor cursor) {
+        int col = cursor.getColumnIndexOrThrow(MediaStore.Files.FileColumns.MEDIA_TYPE);
+        return cursor.getInt(col) == MediaStore.Files.FileColumns.MEDIA_TYPE_VIDEO;
+    }
+
+    /** Images and videos keep their typed content Uris so viewers, Glide and share targets see the right MIME family. */
+    public static Uri contentUri(long id, boolean isVideo) {
+        return ContentUris.withAppendedId(isVideo
+                ? MediaStore.Video.Media.EXTERNAL_CONTENT_URI
+                : MediaStore.Images.Media.EXTERNAL_CONTENT_URI, id);
+    }
+}
@@ -0,0 +1,196 @@
+package com.samarthshukla.gallery;
+
+import android.app.PendingIntent;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.ContentUris;
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.Environment;
+import android.provider.MediaStore;
+import android.text.format.DateUtils;
+import android.util.Log;
+
+import androidx.annotation.RequiresApi;
+
+import com.samarthshukla.gallery.RecycleBinManager.DeletedItem;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The system trash of Android 11+. Trashing sets IS_TRASHED, which hides the item from every app
+ * without copying a byte, and MediaStore purges it by itself once DATE_EXPIRES has passed.
+ * <p>
+ * Changing trash state directly needs write access to the items, which this app has with all-files
+ * access. Without it the user has to confirm each change; {@link #needsConsent()} says so, and the
+ * {@code *Request} methods build the system dialogs for it.
+ */
+@RequiresApi(Build.VERSION_CODES.R)
+class MediaStoreTrashBackend implements TrashBackend {
+    private static final String TAG = "MediaStoreTrashBackend";
+    // What MediaStore gives trashed items; the delete time is derived from the expiry it sets
+    private static final long RETENTION_MS = 30 * DateUtils.DAY_IN_MILLIS;
+    private static final String MEDIA_SELECTION = MediaStore.Files.FileColumns.MEDIA_TYPE + " IN ("
+            + MediaStore.Files.FileColumns.MEDIA_TYPE_IMAGE + ", "
+            + MediaStore.Files.FileColumns.MEDIA_TYPE_VIDEO + ")";
+
+    private final Context context;
+
+    MediaStoreTrashBackend(Context context) {
+        this.context = context;
+    }
+
+    /** @return true if the user has to confirm trash changes through the request dialogs */
+    boolean needsConsent() {
+        return !Environment.isExternalStorageManager();
+    }
+
+    PendingIntent trashRequest(List<Uri> uris) {
+        return MediaStore.createTrashRequest(context.getContentResolver(), uris, true);
+    }
+
+    PendingIntent restoreRequest(DeletedItem item) {
+        return MediaStore.createTrashRequest(context.getContentResolver(),
+                Collections.singletonList(Uri.parse(item.getOriginalPath())), false);
+    }
+
+    PendingIntent deleteRequest(DeletedItem item) {
+        return MediaStore.createDeleteRequest(context.getContentResolver(),
+                Collections.singletonList(Uri.parse(item.getOriginalPath())));
+    }
+
+    @Override
+    public List<DeletedItem> trash(List<Uri> uris, boolean[] videos, RecycleBinManager.ProgressListener progress) {
+        boolean[] trashed = setTrashed(uris, true);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < uris.size(); i++) {
+            if (trashed[i]) ids.add(String.valueOf(ContentUris.parseId(uris.get(i))));
+        }
+        // Read the items back, so they carry the name, path and dates list() will report for them
+        List<DeletedItem> items = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += MediaIndex.MAX_SQL_ARGS) {
+            String[] chunk = ids.subList(from, Math.min(ids.size(), from + MediaIndex.MAX_SQL_ARGS))
+                    .toArray(new String[0]);
+            queryTrashed(MEDIA_SELECTION + " AND " + MediaStore.MediaColumns._ID
+                    + " IN (" + MediaIndex.placeholders(chunk.length) + ")", chunk, items);
+        }
+        if (progress != null) progress.onProgress(uris.size(), uris.size());
+        Log.d(TAG, "Trashed " + items.size() + " of " + uris.size());
+        return items;
+    }
+
+    @Override
+    public boolean restore(DeletedItem item) {
+        return setTrashed(Collections.singletonList(Uri.parse(item.getOriginalPath())), false)[0];
+    }
+
+    @Override
+    public boolean delete(DeletedItem item) {
+        try {
+            return context.getContentResolver().delete(Uri.parse(item.getOriginalPath()), includeTrashed()) > 0;
+        } catch (Exception e) {
+            Log.e(TAG, "Error deleting trashed item", e);
+            return false;
+        }
+    }
+
+    @Override
+    public List<DeletedItem> list() {
+        List<DeletedItem> items = new ArrayList<>();
+        queryTrashed(MEDIA_SELECTION, null, items);
+        return items;
+    }
+
+    /** Adds the trashed items matching {@code selection} to {@code into}, soonest to expire first. */
+    private void queryTrashed(String selection, String[] selectionArgs, List<DeletedItem> into) {
+        Bundle args = new Bundle();
+        args.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+        args.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, selection);
+        if (selectionArgs != null) {
+            args.putStringArray(ContentResolver.QUERY_ARG_SQL_SELECTION_ARGS, selectionArgs);
+        }
+        args.putString(ContentResolver.QUERY_ARG_SQL_SORT_ORDER, MediaStore.MediaColumns.DATE_EXPIRES + " ASC");
+        String[] projection = {
+                MediaStore.MediaColumns._ID,
+                MediaStore.Files.FileColumns.MEDIA_TYPE,
+                MediaStore.MediaColumns.DISPLAY_NAME,
+                MediaStore.MediaColumns.DATA,
+                MediaStore.MediaColumns.DATE_EXPIRES
+        };
+        try (Cursor c = context.getContentResolver().query(
+                MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), projection, args, null)) {
+            if (c == null) return;
+            while (c.moveToNext()) {
+                boolean video = c.getInt(1) == MediaStore.Files.FileColumns.MEDIA_TYPE_VIDEO;
+                into.add(new DeletedItem(
+                        MediaStoreQuery.contentUri(c.getLong(0), video).toString(),
+                        c.getString(3),
+                        c.getLong(4) * 1000 - RETENTION_MS,
+                        c.getString(2),
+                        video));
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Error listing trashed items", e);
+        }
+    }
+
+    @Override
+    public void clear() {
+        Bundle args = new Bundle();
+        args.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_ONLY);
+        args.putString(ContentResolver.QUERY_ARG_SQL_SELECTION, MEDIA_SELECTION);
+        try {
+            context.getContentResolver().delete(MediaStore.Files.getContentUri(MediaStore.VOLUME_EXTERNAL), args);
+        } catch (Exception e) {
+            Log.e(TAG, "Error clearing trash", e);
+        }
+    }
+
+    /**
+     * Sets IS_TRASHED on every item with one applyBatch call, one MediaProvider transaction; if that
+     * fails as a whole, item by item so one unwritable item does not hold back the rest.
+     */
+    private boolean[] setTrashed(List<Uri> uris, boolean trashed) {
+        boolean[] done = new boolean[uris.size()];
+        ArrayList<ContentProviderOperation> ops = new ArrayList<>(uris.size());
+        for (Uri uri : uris) {
+            ops.add(ContentProviderOperation.newUpdate(uri)
+                    .withValue(MediaStore.MediaColumns.IS_TRASHED, trashed ? 1 : 0)
+                    .withExtra(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_INCLUDE)
+                    .build());
+        }
+        try {
+            ContentProviderResult[] results = context.getContentResolver().applyBatch(MediaStore.AUTHORITY, ops);
+            for (int i = 0; i < results.length; i++) {
+                done[i] = results[i].count != null && results[i].count > 0;
+            }
+            return done;
+        } catch (Exception e) {
+            Log.w(TAG, "Batch trash update failed, updating one by one", e);
+        }
+
+        ContentValues values = new ContentValues();
+        values.put(MediaStore.MediaColumns.IS_TRASHED, trashed ? 1 : 0);
+        for (int i = 0; i < uris.size(); i++) {
+            try {
+                done[i] = context.getContentResolver().update(uris.get(i), values, includeTrashed()) > 0;
+            } catch (Exception e) {
+                Log.e(TAG, "Trash update failed for " + uris.get(i), e);
+            }
+        }
+        return done;
+    }
+
+    private static Bundle includeTrashed() {
+        Bundle args = new Bundle();
+        args.putInt(MediaStore.QUERY_ARG_MATCH_TRASHED, MediaStore.MATCH_INCLUDE);
+        return args;
+    }
+}
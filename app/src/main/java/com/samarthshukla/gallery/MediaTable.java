@@ -0,0 +1,173 @@
+package com.samarthshukla.gallery;
+
+import android.net.Uri;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented store for a list of media rows: one primitive array per column instead of one
+ * object (plus Uri) per photo. Rows are only ever appended, so views handed out earlier stay valid;
+ * a refresh builds a new table rather than clearing this one.
+ * Content Uris are created on demand, e.g. when a cell is bound.
+ * <p>
+ * One thread appends; other threads may read any row below a {@link #size()} they have observed.
+ * Bucket ids are only safe to read on the appending thread.
+ */
+public class MediaTable {
+
+    public static final byte FLAG_VIDEO = 1;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    // Volatile so a grown array is never seen before the rows copied into it
+    private volatile long[] ids = new long[INITIAL_CAPACITY];
+    private volatile long[] dates = new long[INITIAL_CAPACITY];
+    private volatile long[] modified = new long[INITIAL_CAPACITY]; // DATE_MODIFIED, seconds
+    private volatile byte[] flags = new byte[INITIAL_CAPACITY];
+    private int[] buckets = new int[INITIAL_CAPACITY];
+    private volatile int size;
+
+    // Bucket ids are interned: every row stores an int into this pool
+    private final List<String> bucketPool = new ArrayList<>();
+    private final Map<String, Integer> bucketLookup = new HashMap<>();
+
+    /* ---------- writes ---------- */
+
+    public void append(long id, long dateAdded, long dateModified, byte rowFlags, String bucketId) {
+        ensureCapacity(size + 1);
+        ids[size] = id;
+        dates[size] = dateAdded;
+        modified[size] = dateModified;
+        flags[size] = rowFlags;
+        buckets[size] = internBucket(bucketId);
+        size++;
+    }
+
+    public void appendAll(MediaTable other) {
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.ids, 0, ids, size, other.size);
+        System.arraycopy(other.dates, 0, dates, size, other.size);
+        System.arraycopy(other.modified, 0, modified, size, other.size);
+        System.arraycopy(other.flags, 0, flags, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            buckets[size + i] = internBucket(other.bucketPool.get(other.buckets[i]));
+        }
+        size += other.size;
+    }
+
+    private int internBucket(String bucketId) {
+        Integer idx = bucketLookup.get(bucketId);
+        if (idx == null) {
+            idx = bucketPool.size();
+            bucketPool.add(bucketId);
+            bucketLookup.put(bucketId, idx);
+        }
+        return idx;
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length + (ids.length >> 1));
+        ids = Arrays.copyOf(ids, capacity);
+        dates = Arrays.copyOf(dates, capacity);
+        modified = Arrays.copyOf(modified, capacity);
+        flags = Arrays.copyOf(flags, capacity);
+        buckets = Arrays.copyOf(buckets, capacity);
+    }
+
+    /* ---------- reads ---------- */
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public long id(int row) {
+        return ids[row];
+    }
+
+    public long dateAdded(int row) {
+        return dates[row];
+    }
+
+    /** MediaStore DATE_MODIFIED in seconds; changes whenever the file's content does. */
+    public long dateModified(int row) {
+        return modified[row];
+    }
+
+    public boolean isVideo(int row) {
+        return (flags[row] & FLAG_VIDEO) != 0;
+    }
+
+    public String bucketId(int row) {
+        return bucketPool.get(buckets[row]);
+    }
+
+    public Uri uri(int row) {
+        return MediaStoreQuery.contentUri(ids[row], isVideo(row));
+    }
+
+    /**
+     * Uris of the photos (not videos) currently in the table, for the viewer.
+     * Only the row positions are copied; Uris are built as the viewer pages through them.
+     */
+    public List<Uri> imageUris() {
+        final int[] rows = imageRows();
+        return new AbstractList<Uri>() {
+            @Override
+            public Uri get(int index) {
+                return uri(rows[index]);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    /** Thumbnail keys at {@code level} for the photos, in the same order as {@link #imageUris()}. */
+    public List<ThumbnailPyramid.Key> imageThumbnailKeys(ThumbnailPyramid.Level level) {
+        final int[] rows = imageRows();
+        return new AbstractList<ThumbnailPyramid.Key>() {
+            @Override
+            public ThumbnailPyramid.Key get(int index) {
+                int row = rows[index];
+                return new ThumbnailPyramid.Key(id(row), false, dateModified(row), level);
+            }
+
+            @Override
+            public int size() {
+                return rows.length;
+            }
+        };
+    }
+
+    private int[] imageRows() {
+        int n = size;
+        int[] rows = new int[n];
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (!isVideo(i)) rows[count++] = i;
+        }
+        return count == n ? rows : Arrays.copyOf(rows, count);
+    }
+
+    /** Position of {@code row} among the photos returned by {@link #imageUris()}, or -1 for a video. */
+    public int imageIndexOf(int row) {
+        if (isVideo(row)) return -1;
+        int index = 0;
+        for (int i = 0; i < row; i++) {
+            if (!isVideo(i)) index++;
+        }
+        return index;
+    }
+}
@@ -8,9 +8,13 @@ import android.content.SharedPreferences;
 import android.content.res.Resources;
 import android.graphics.drawable.Drawable;
 import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
 import android.preference.PreferenceManager;
 import android.util.DisplayMetrics;
 import android.view.LayoutInflater;
+import android.view.MotionEvent;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.ImageView;
@@ -18,20 +22,27 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
 import com.bumptech.glide.RequestBuilder;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.engine.GlideException;
 import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestListener;
+import com.bumptech.glide.request.RequestOptions;
 import com.bumptech.glide.request.target.CustomTarget;
+import com.bumptech.glide.request.target.Target;
 import com.bumptech.glide.load.resource.drawable.DrawableTransitionOptions;
 import com.bumptech.glide.request.transition.DrawableCrossFadeFactory;
 import com.github.chrisbanes.photoview.PhotoView;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 /**
  * Single adapter – GRID & VIEWER.
@@ -39,51 +50,242 @@ import java.util.List;
 public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder> {
 
     /* ---------- view-type ids ---------- */
-    public static final int TYPE_HEADER = MediaGroupedItem.TYPE_HEADER;
-    public static final int TYPE_MEDIA = MediaGroupedItem.TYPE_MEDIA;
+    public static final int TYPE_HEADER = 0;
+    public static final int TYPE_MEDIA = 1;
+    private static final int DEFAULT_SPAN_COUNT = 3;
+    // Beyond this many header changes one full rebind is cheaper than individual notifications
+    private static final int MAX_HEADER_NOTIFICATIONS = 400;
+    /* ---------- payloads ---------- */
+    // Partial bind that only updates the check overlay; the thumbnail is left alone
+    public static final Object PAYLOAD_SELECTION = new Object();
+    // Rebind that replaces a fast-scroll placeholder with the real thumbnail
+    private static final Object PAYLOAD_DECODE = new Object();
+    // Grid diffs are computed here, one at a time, like AsyncListDiffer does
+    private static final Executor DIFF_EXECUTOR =
+            BackgroundExecutor.cpu().serial(BackgroundExecutor.Lane.VISIBLE);
     /* ---------- members ---------- */
     private final Mode mode;
     private final Context context;
-    private final List<MediaGroupedItem> grouped; // grid
+    private MediaTable table; // grid rows
+    private SectionIndex sections; // grid headers laid over the rows
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private int submitGeneration;
+    private SectionIndex pendingSections;  // target of the diff in flight
+    private MediaTable pendingTable;       // and the table it indexes
+    private SectionIndex pendingExtension; // rows appended while that diff ran
     private final List<Uri> viewerUris; // viewer
+    private final List<ThumbnailPyramid.Key> viewerKeys; // screen-level keys for viewerUris, or null
     private final int fullW, fullH; // 3× screen
+    private int gridWidthPx; // 0 until laid out
+    private int spanCount = DEFAULT_SPAN_COUNT;
+    private int cellPx; // grid cell edge, from the grid width and span count
+    private ThumbnailPyramid.Level gridLevel; // pyramid level that covers cellPx
+    private RequestOptions gridOptions;
+    private RequestOptions placeholderOptions;
+    private boolean fastScrolling; // bind placeholders only, decode once the grid settles
     // Selection functionality
-    private final List<Uri> selectedItems = new ArrayList<>();
+    private final SelectionSet selection = new SelectionSet();
+    // Live drag range, in rows; one interval until the finger lifts and it is committed
+    private int dragAnchor = -1;
+    private int dragLo, dragHi;
+    private boolean dragSelects;
+    private int dragDelta; // change in selection size the range will commit
     private OnSelectionChangedListener selectionListener;
     private boolean isSelectionMode = false;
     /* ---------- ctor (private) ---------- */
     private PhotoAdapter(Context ctx, Mode mode,
-                         List<MediaGroupedItem> gridList,
-                         List<Uri> viewerList) {
+                         MediaTable table,
+                         List<Uri> viewerList,
+                         List<ThumbnailPyramid.Key> viewerKeys) {
 
         this.context = ctx;
         this.mode = mode;
-        this.grouped = gridList;
+        this.table = table;
+        this.sections = SectionIndex.ungrouped(0);
         this.viewerUris = viewerList;
+        this.viewerKeys = viewerKeys;
+        // Grid cells are keyed by MediaStore _ID, so diffs reuse bound holders and their bitmaps
+        setHasStableIds(mode == Mode.GRID);
+        // A restored scroll position waits for the first timeline instead of landing on an empty grid
+        setStateRestorationPolicy(StateRestorationPolicy.PREVENT_WHEN_EMPTY);
 
         DisplayMetrics dm = Resources.getSystem().getDisplayMetrics();
         fullW = dm.widthPixels * 2;
         fullH = dm.heightPixels * 2;
+        placeholderOptions = ThumbnailPolicy.fastScrollPlaceholder();
+        setCellSize(ThumbnailPolicy.gridCellPx(0, DEFAULT_SPAN_COUNT));
     }
 
     /* ---------- factories ---------- */
-    public static PhotoAdapter forGrid(Context ctx, List<MediaGroupedItem> items) {
-        return new PhotoAdapter(ctx, Mode.GRID, items, null);
+    public static PhotoAdapter forGrid(Context ctx, MediaTable table) {
+        return new PhotoAdapter(ctx, Mode.GRID, table, null, null);
     }
 
     public static PhotoAdapter forViewer(Context ctx, List<Uri> uris) {
-        return new PhotoAdapter(ctx, Mode.VIEWER, null, uris);
+        return new PhotoAdapter(ctx, Mode.VIEWER, null, uris, null);
+    }
+
+    /**
+     * Viewer whose first frame comes from the thumbnail pyramid: {@code keys} are screen-level keys
+     * in the same order as {@code uris}.
+     */
+    public static PhotoAdapter forViewer(Context ctx, List<Uri> uris, List<ThumbnailPyramid.Key> keys) {
+        return new PhotoAdapter(ctx, Mode.VIEWER, null, uris, keys);
+    }
+
+    /**
+     * Replaces the grid contents. The diff against what is shown is computed off the main thread and
+     * dispatched as item-level changes, so cells that stay keep their bindings and thumbnails.
+     * Only rows covered by {@code next} are shown.
+     */
+    public void submit(MediaTable nextTable, SectionIndex next) {
+        final int gen = ++submitGeneration;
+        final MediaTable prevTable = table;
+        final SectionIndex prev = sections;
+        pendingSections = next;
+        pendingTable = nextTable;
+        pendingExtension = null;
+
+        DIFF_EXECUTOR.execute(() -> {
+            DiffUtil.DiffResult diff = DiffUtil.calculateDiff(
+                    new GridDiff(prevTable, prev, nextTable, next), false);
+            mainHandler.post(() -> {
+                if (gen != submitGeneration) return; // superseded
+                endRangeSelection(); // the drag range is in rows of the outgoing table
+                table = nextTable;
+                sections = next;
+                pendingSections = null;
+                pendingTable = null;
+                diff.dispatchUpdatesTo(this);
+                if (pendingExtension != null) {
+                    appendSections(pendingExtension);
+                }
+            });
+        });
+    }
+
+    /** Shows rows appended to the current (or currently submitted) table; earlier positions are unchanged. */
+    public void appendSections(SectionIndex extended) {
+        if (pendingSections != null) {
+            pendingExtension = extended; // applied once the diff lands
+            return;
+        }
+        pendingExtension = null;
+        int before = getItemCount();
+        sections = extended;
+        notifyItemRangeInserted(before, extended.itemCount() - before);
+    }
+
+    /**
+     * Switches to other sections over the same rows. Rows never move relative to each other, so
+     * only headers that appear, disappear or change label are notified and no photo cell rebinds.
+     *
+     * @return where the row at {@code anchorPosition} ended up, to restore the scroll position
+     */
+    public int swapSections(SectionIndex next, int anchorPosition) {
+        if (pendingSections != null) {
+            // The diff in flight targets the old granularity; take its table and rebind once
+            submitGeneration++;
+            endRangeSelection(); // the drag range is in rows of the outgoing table
+            table = pendingTable;
+            pendingSections = null;
+            pendingTable = null;
+            pendingExtension = null;
+            sections = next;
+            notifyDataSetChanged();
+            return RecyclerView.NO_POSITION;
+        }
+        SectionIndex prev = sections;
+        int anchor = anchorPosition >= 0 && anchorPosition < prev.itemCount()
+                ? next.positionOfRow(prev.anchorRow(anchorPosition)) : RecyclerView.NO_POSITION;
+        sections = next;
+
+        if (prev.rowCount() != next.rowCount()
+                || prev.sectionCount() + next.sectionCount() > MAX_HEADER_NOTIFICATIONS) {
+            notifyDataSetChanged();
+            return anchor;
+        }
+
+        // Merge the two header lists in row order; positions before j are already in next's layout
+        int i = 0, j = 0;
+        while (i < prev.sectionCount() || j < next.sectionCount()) {
+            int a = i < prev.sectionCount() ? prev.sectionStartRow(i) : Integer.MAX_VALUE;
+            int b = j < next.sectionCount() ? next.sectionStartRow(j) : Integer.MAX_VALUE;
+            if (a == b) {
+                if (!prev.sectionLabel(i).equals(next.sectionLabel(j))) {
+                    notifyItemChanged(next.headerPosition(j));
+                }
+                i++;
+                j++;
+            } else if (a < b) {
+                notifyItemRemoved(a + j);
+                i++;
+            } else {
+                notifyItemInserted(next.headerPosition(j));
+                j++;
+            }
+        }
+        return anchor;
+    }
+
+    /* ---------- cell size ---------- */
+    @Override
+    public void onAttachedToRecyclerView(@NonNull RecyclerView rv) {
+        if (mode != Mode.GRID) return;
+        // Decode at the size cells are actually laid out at, and follow width or span changes
+        rv.addOnLayoutChangeListener(cellSizeTracker);
+    }
+
+    @Override
+    public void onDetachedFromRecyclerView(@NonNull RecyclerView rv) {
+        rv.removeOnLayoutChangeListener(cellSizeTracker);
+    }
+
+    private final View.OnLayoutChangeListener cellSizeTracker = (v, l, t, r, b, ol, ot, or, ob) -> {
+        RecyclerView rv = (RecyclerView) v;
+        if (!(rv.getLayoutManager() instanceof GridLayoutManager)) return;
+        gridWidthPx = rv.getWidth() - rv.getPaddingLeft() - rv.getPaddingRight();
+        spanCount = ((GridLayoutManager) rv.getLayoutManager()).getSpanCount();
+        setCellSize(ThumbnailPolicy.gridCellPx(gridWidthPx, spanCount));
+    };
+
+    /** Follows a zoom to another span count; cells bound from here on load at the new size and level. */
+    public void setSpanCount(int spans) {
+        if (spans == spanCount) return;
+        spanCount = spans;
+        setCellSize(ThumbnailPolicy.gridCellPx(gridWidthPx, spans));
+    }
+
+    private void setCellSize(int px) {
+        ThumbnailPyramid.Level level = ThumbnailPolicy.gridLevel(px, spanCount);
+        if (px == cellPx && level == gridLevel) return;
+        cellPx = px;
+        gridLevel = level;
+        gridOptions = ThumbnailPolicy.gridCell(level == ThumbnailPyramid.Level.MICRO
+                ? Math.min(px, ThumbnailPyramid.MICRO_EDGE_PX) : px);
     }
 
     /* ---------- basics ---------- */
     @Override
     public int getItemCount() {
-        return mode == Mode.GRID ? grouped.size() : viewerUris.size();
+        return mode == Mode.GRID ? sections.itemCount() : viewerUris.size();
+    }
+
+    @Override
+    public long getItemId(int pos) {
+        if (mode != Mode.GRID) return RecyclerView.NO_ID;
+        return sections.isHeader(pos) ? headerId(sections.label(pos)) : table.id(sections.rowAt(pos));
+    }
+
+    /** Headers get negative ids derived from their label so they never clash with a media _ID. */
+    private static long headerId(String label) {
+        return -1L - (label.hashCode() & 0xffffffffL);
     }
 
     @Override
     public int getItemViewType(int pos) {
-        return mode == Mode.GRID ? grouped.get(pos).getType() : TYPE_MEDIA;
+        if (mode != Mode.GRID) return TYPE_MEDIA;
+        return sections.isHeader(pos) ? TYPE_HEADER : TYPE_MEDIA;
     }
 
     /* ---------- create holders ---------- */
@@ -103,48 +305,78 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     }
 
     /* ---------- bind ---------- */
+    @Override
+    public void onBindViewHolder(@NonNull RecyclerView.ViewHolder h, int pos,
+                                 @NonNull List<Object> payloads) {
+        if (h instanceof GridHolder && !payloads.isEmpty()) {
+            GridHolder holder = (GridHolder) h;
+            int row = sections.rowAt(pos);
+            boolean handled = false;
+            if (payloads.contains(PAYLOAD_DECODE)) {
+                if (holder.deferred && !fastScrolling) loadThumbnail(holder, row);
+                handled = true;
+            }
+            if (payloads.contains(PAYLOAD_SELECTION)) {
+                updateSelectionState(holder, isRowSelected(row));
+                handled = true;
+            }
+            if (handled) return;
+        }
+        super.onBindViewHolder(h, pos, payloads);
+    }
+
     @Override
     public void onBindViewHolder(@NonNull RecyclerView.ViewHolder h, int pos) {
         if (mode == Mode.GRID) {
-            MediaGroupedItem item = grouped.get(pos);
-            if (item.getType() == TYPE_HEADER) {
-                ((HeaderHolder) h).headerText.setText(item.getHeader());
+            if (h instanceof HeaderHolder) {
+                bindHeader((HeaderHolder) h, pos);
             } else {
-                bindGrid((GridHolder) h, item.getMedia(), pos);
+                bindGrid((GridHolder) h, sections.rowAt(pos), pos);
             }
         } else {
-            bindViewer((ViewerHolder) h, viewerUris.get(pos));
+            bindViewer((ViewerHolder) h, viewerUris.get(pos), viewerKeys != null ? viewerKeys.get(pos) : null);
         }
     }
 
     /* ===== GRID ===== */
-    private void bindGrid(GridHolder holder, MediaItem media, int pos) {
-        Uri uri = media.getUri();
+    private void bindHeader(HeaderHolder holder, int pos) {
+        holder.headerText.setText(sections.label(pos));
+        // In selection mode a header tap selects its whole day, month or year
+        holder.itemView.setOnClickListener(v -> {
+            int current = holder.getBindingAdapterPosition();
+            if (isSelectionMode && current != RecyclerView.NO_POSITION) toggleSectionAt(current);
+        });
+        holder.itemView.setOnLongClickListener(v -> {
+            int current = holder.getBindingAdapterPosition();
+            if (current == RecyclerView.NO_POSITION) return false;
+            if (!isSelectionMode) enterSelectionMode();
+            toggleSectionAt(current);
+            return true;
+        });
+    }
 
-        // 700-px thumb into cell
-        Glide.with(context)
-                .load(uri)
-                .override(700, 700)
-                .centerCrop()
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .into(holder.imageView);
+    private void bindGrid(GridHolder holder, int row, int pos) {
+        Uri uri = table.uri(row);
 
-        // Warm-up cache for instant viewer preview
-        Glide.with(context)
-                .load(uri)
-                .override(700, 700)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
-                .preload();
+        if (fastScrolling) {
+            placeholderRequest(row).into(holder.imageView);
+            holder.deferred = true;
+            ThumbnailStats.deferredBind();
+        } else {
+            loadThumbnail(holder, row);
+        }
+        ThumbnailStats.bind();
 
-        boolean video = media.isVideo();
+        boolean video = table.isVideo(row);
         holder.playIcon.setVisibility(video ? View.VISIBLE : View.GONE);
         holder.videoOverlay.setVisibility(video ? View.VISIBLE : View.GONE);
 
-        String tn = "media_" + pos;
+        String tn = "media_" + table.id(row); // stable across header-only position shifts
         ViewCompat.setTransitionName(holder.imageView, tn);
 
         // Update selection state
-        updateSelectionState(holder, uri);
+        long id = table.id(row);
+        updateSelectionState(holder, isRowSelected(row));
 
         holder.imageView.setOnClickListener(v -> {
             if (isSelectionMode) {
@@ -157,12 +389,15 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
                         .setDuration(100)
                         .start();
 
-                toggleSelection(uri, holder);
+                toggleSelection(id, video, holder);
             } else {
+                int current = holder.getBindingAdapterPosition();
+                if (current == RecyclerView.NO_POSITION) return;
                 if (video) {
                     openVideo(uri);
                 } else {
-                    openViewer(pos, tn, holder.imageView);
+                    // Resolve the row now: diffs can move this cell without rebinding it
+                    openViewer(sections.rowAt(current), tn, holder.imageView);
                 }
             }
         });
@@ -170,15 +405,160 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         holder.imageView.setOnLongClickListener(v -> {
             if (!isSelectionMode) {
                 enterSelectionMode();
-                toggleSelection(uri, holder);
+                toggleSelection(id, video, holder);
                 return true;
             }
             return false;
         });
+
+        // A touch-down on a photo usually becomes a tap: start the viewer's decodes now.
+        // If the touch turns into a scroll the RecyclerView cancels it and the warm-up is dropped.
+        holder.imageView.setOnTouchListener((v, e) -> {
+            if (isSelectionMode || video) return false;
+            int action = e.getActionMasked();
+            if (action == MotionEvent.ACTION_DOWN) {
+                int current = holder.getBindingAdapterPosition();
+                if (current != RecyclerView.NO_POSITION) {
+                    viewerPlaceholderRequest(screenKey(sections.rowAt(current))).preload();
+                }
+                holder.fullSizeWarmup = viewerFullRequest(uri).preload();
+                ThumbnailStats.touchWarmup();
+            } else if (action == MotionEvent.ACTION_CANCEL && holder.fullSizeWarmup != null) {
+                Glide.with(context).clear(holder.fullSizeWarmup);
+                holder.fullSizeWarmup = null;
+                ThumbnailStats.touchWarmupCancelled();
+            } else if (action == MotionEvent.ACTION_UP) {
+                holder.fullSizeWarmup = null;
+            }
+            return false;
+        });
+    }
+
+    /** Cell-sized thumb from the thumbnail pyramid; look-ahead warming is GridPreloader's job. */
+    private void loadThumbnail(GridHolder holder, int row) {
+        holder.deferred = false;
+        final long bindStart = SystemClock.uptimeMillis();
+        gridRequest(row)
+                .listener(new RequestListener<Drawable>() {
+                    @Override
+                    public boolean onLoadFailed(@Nullable GlideException e, Object model,
+                                                @NonNull Target<Drawable> target, boolean isFirstResource) {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean onResourceReady(@NonNull Drawable resource, @NonNull Object model,
+                                                   Target<Drawable> target, @NonNull DataSource dataSource,
+                                                   boolean isFirstResource) {
+                        ThumbnailStats.loaded(dataSource == DataSource.MEMORY_CACHE,
+                                dataSource == DataSource.DATA_DISK_CACHE
+                                        || dataSource == DataSource.RESOURCE_DISK_CACHE,
+                                SystemClock.uptimeMillis() - bindStart);
+                        return false;
+                    }
+                })
+                .into(holder.imageView);
+    }
+
+    /**
+     * Switches between normal binding and fast-scroll binding. While fast, cells get a micro
+     * thumbnail only if the pyramid can serve it without MediaStore, else a flat placeholder, and
+     * nothing is preloaded; {@link #decodeDeferred} then loads the cells left on screen.
+     */
+    public void setFastScrolling(boolean fast) {
+        fastScrolling = fast;
+    }
+
+    public boolean isFastScrolling() {
+        return fastScrolling;
+    }
+
+    /** Issues the real decodes for placeholder cells in [from, to]. */
+    public void decodeDeferred(int from, int to) {
+        if (mode != Mode.GRID || from == RecyclerView.NO_POSITION || to < from) return;
+        notifyItemRangeChanged(from, to - from + 1, PAYLOAD_DECODE);
+    }
+
+    /**
+     * Cells that were bound during a fast scroll but sat in the view cache or prefetch when the grid
+     * settled come back here without a rebind; they get their real decode now.
+     */
+    @Override
+    public void onViewAttachedToWindow(@NonNull RecyclerView.ViewHolder h) {
+        if (!(h instanceof GridHolder) || fastScrolling) return;
+        GridHolder holder = (GridHolder) h;
+        int pos = holder.getBindingAdapterPosition();
+        if (!holder.deferred || pos == RecyclerView.NO_POSITION || sections.isHeader(pos)) return;
+        loadThumbnail(holder, sections.rowAt(pos));
+    }
+
+    /**
+     * Warms the thumbnail shown at a grid position.
+     *
+     * @return false for headers, positions outside the grid and while fast-scrolling
+     */
+    public boolean preloadPosition(int pos) {
+        if (mode != Mode.GRID || fastScrolling || pos < 0 || pos >= sections.itemCount() || sections.isHeader(pos)) {
+            return false;
+        }
+        gridRequest(sections.rowAt(pos)).preload();
+        return true;
+    }
+
+    /* ---------- requests ---------- */
+    // Preloads only help when they match the displaying request exactly, so each shape lives here once
+
+    private RequestBuilder<Drawable> gridRequest(int row) {
+        return Glide.with(context)
+                .load(new ThumbnailPyramid.Key(table.id(row), table.isVideo(row), table.dateModified(row), gridLevel))
+                .apply(gridOptions);
+    }
+
+    /** The cell's own thumbnail if it is still in memory, else the micro placeholder. */
+    private RequestBuilder<Drawable> placeholderRequest(int row) {
+        return gridRequest(row)
+                .onlyRetrieveFromCache(true)
+                .error(Glide.with(context)
+                        .load(new ThumbnailPyramid.Key(table.id(row), table.isVideo(row), table.dateModified(row),
+                                ThumbnailPyramid.Level.MICRO))
+                        .apply(placeholderOptions));
+    }
+
+    private ThumbnailPyramid.Key screenKey(int row) {
+        return new ThumbnailPyramid.Key(table.id(row), table.isVideo(row), table.dateModified(row),
+                ThumbnailPyramid.Level.SCREEN);
+    }
+
+    /** Screen-size placeholder for the viewer, itself led by the grid-size thumbnail. */
+    private RequestBuilder<Drawable> viewerPlaceholderRequest(ThumbnailPyramid.Key screenKey) {
+        return Glide.with(context)
+                .load(screenKey)
+                .dontTransform()
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .thumbnail(Glide.with(context)
+                        .load(screenKey.at(ThumbnailPyramid.Level.GRID))
+                        .dontTransform()
+                        .diskCacheStrategy(DiskCacheStrategy.NONE));
+    }
+
+    // Only for Uris that did not come from the media index
+    private RequestBuilder<Drawable> viewerThumbRequest(Uri uri) {
+        return Glide.with(context)
+                .load(uri)
+                .override(700, 700)
+                .dontTransform()
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
+    private RequestBuilder<Drawable> viewerFullRequest(Uri uri) {
+        return Glide.with(context)
+                .load(uri)
+                .override(fullW, fullH)
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
     }
 
     /* ===== VIEWER ===== */
-    private void bindViewer(ViewerHolder vh, Uri uri) {
+    private void bindViewer(ViewerHolder vh, Uri uri, ThumbnailPyramid.Key key) {
         vh.photoView.setMinimumScale(1.0f);
         vh.photoView.setMaximumScale(3.0f);
         vh.photoView.setMediumScale(1.5f);
@@ -206,17 +586,8 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         });
 
         // Load full-resolution image with thumbnail
-        RequestBuilder<Drawable> thumb = Glide.with(context)
-                .load(uri)
-                .override(700, 700)
-                .dontTransform()
-                .diskCacheStrategy(DiskCacheStrategy.ALL);
-
-        Glide.with(context)
-                .load(uri)
-                .override(fullW, fullH)
-                .thumbnail(thumb)
-                .diskCacheStrategy(DiskCacheStrategy.ALL)
+        viewerFullRequest(uri)
+                .thumbnail(key != null ? viewerPlaceholderRequest(key) : viewerThumbRequest(uri))
                 .transition(DrawableTransitionOptions.withCrossFade())
                 .into(new CustomTarget<Drawable>() {
                     @Override
@@ -240,8 +611,8 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
 
     /* ---------- Selection functionality ---------- */
 
-    private void updateSelectionState(GridHolder holder, Uri uri) {
-        if (selectedItems.contains(uri)) {
+    private void updateSelectionState(GridHolder holder, boolean selected) {
+        if (selected) {
             holder.selectionOverlay.setVisibility(View.VISIBLE);
             holder.checkIcon.setVisibility(View.VISIBLE);
 
@@ -285,32 +656,20 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         }
     }
 
-    public void selectItem(Uri uri) {
-        if (!selectedItems.contains(uri)) {
-            selectedItems.add(uri);
-            notifyDataSetChanged();
-        }
-    }
-
-    private void toggleSelection(Uri uri, GridHolder holder) {
-        if (selectedItems.contains(uri)) {
-            selectedItems.remove(uri);
-        } else {
-            selectedItems.add(uri);
-        }
-        updateSelectionState(holder, uri);
+    private void toggleSelection(long id, boolean video, GridHolder holder) {
+        updateSelectionState(holder, selection.toggle(id, video));
 
         if (selectionListener != null) {
-            selectionListener.onSelectionChanged(selectedItems);
+            selectionListener.onSelectionChanged(selection.size());
         }
 
         // Only exit selection mode if the user has deselected all items AND we're already in selection mode
         // Add a longer delay to prevent accidental exit during rapid selection
-        if (selectedItems.isEmpty() && isSelectionMode) {
+        if (selection.isEmpty() && isSelectionMode) {
             holder.itemView.postDelayed(() -> {
-                if (selectedItems.isEmpty() && isSelectionMode) {
+                if (selection.isEmpty() && isSelectionMode) {
                     // Double-check that we're still in selection mode and no items are selected
-                    if (selectedItems.isEmpty() && isSelectionMode) {
+                    if (selection.isEmpty() && isSelectionMode) {
                         exitSelectionMode();
                     }
                 }
@@ -327,58 +686,156 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
 
     private void exitSelectionMode() {
         isSelectionMode = false;
-        selectedItems.clear();
+        dragAnchor = -1;
+        selection.clear();
         if (selectionListener != null) {
-            selectionListener.onSelectionChanged(selectedItems);
+            selectionListener.onSelectionChanged(0);
             selectionListener.onSelectionModeChanged(false);
         }
-        notifyDataSetChanged();
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
     }
 
+    /** Selected items in the order they were selected; a snapshot, unaffected by later changes. */
     public List<Uri> getSelectedItems() {
-        return new ArrayList<>(selectedItems);
+        return selection.uris();
     }
 
-    public void clearSelection() {
-        selectedItems.clear();
-        isSelectionMode = false;
-        if (selectionListener != null) {
-            selectionListener.onSelectionChanged(selectedItems);
-            selectionListener.onSelectionModeChanged(false);
+    /** Includes a drag range that is still in progress. */
+    public int getSelectionCount() {
+        return selection.size() + (dragAnchor >= 0 ? dragDelta : 0);
+    }
+
+    public boolean isHeaderPosition(int position) {
+        return mode == Mode.GRID && position >= 0 && position < sections.itemCount() && sections.isHeader(position);
+    }
+
+    /**
+     * Starts a drag range at {@code position}. The range selects if that item was unselected and
+     * deselects otherwise, like the first cell it covers.
+     */
+    public void beginRangeSelection(int position) {
+        if (mode != Mode.GRID || position < 0 || position >= sections.itemCount() || sections.isHeader(position)) {
+            return;
         }
-        notifyDataSetChanged();
+        int row = sections.rowAt(position);
+        dragAnchor = dragLo = dragHi = row;
+        dragSelects = !selection.contains(table.id(row));
+        dragDelta = dragSelects ? 1 : -1;
+        notifyItemChanged(position, PAYLOAD_SELECTION);
+        notifySelectionCount();
     }
 
-    public boolean isSelectionMode() {
-        return isSelectionMode;
+    /**
+     * Moves the free end of the drag range to {@code position}. Only rows entering or leaving the
+     * range are visited, and each side is notified as one range change.
+     */
+    public void extendRangeSelection(int position) {
+        if (dragAnchor < 0 || position < 0 || position >= sections.itemCount()) return;
+        int row = Math.min(sections.anchorRow(position), sections.rowCount() - 1);
+        int lo = Math.min(dragAnchor, row);
+        int hi = Math.max(dragAnchor, row);
+        if (lo == dragLo && hi == dragHi) return;
+
+        if (lo < dragLo) {
+            changeDragRows(lo, dragLo - 1, true);
+        } else if (lo > dragLo) {
+            changeDragRows(dragLo, lo - 1, false);
+        }
+        if (hi > dragHi) {
+            changeDragRows(dragHi + 1, hi, true);
+        } else if (hi < dragHi) {
+            changeDragRows(hi + 1, dragHi, false);
+        }
+        dragLo = lo;
+        dragHi = hi;
+        notifySelectionCount();
     }
 
-    public void selectItemByPosition(int position) {
-        if (mode != Mode.GRID || position < 0 || position >= grouped.size()) return;
-        MediaGroupedItem item = grouped.get(position);
-        if (item.getType() == TYPE_MEDIA) {
-            Uri uri = item.getMedia().getUri();
-            if (!selectedItems.contains(uri)) {
-                selectedItems.add(uri);
-                notifyItemChanged(position);
-                if (selectionListener != null) selectionListener.onSelectionChanged(selectedItems);
+    /** Commits the drag range to the selection. */
+    public void endRangeSelection() {
+        if (dragAnchor < 0) return;
+        dragAnchor = -1;
+        for (int row = dragLo; row <= dragHi; row++) {
+            if (dragSelects) {
+                selection.add(table.id(row), table.isVideo(row));
+            } else {
+                selection.remove(table.id(row));
             }
         }
+        if (selection.isEmpty() && isSelectionMode) exitSelectionMode();
+    }
+
+    /** Selects every item of the section under {@code headerPosition}, or deselects it if all are selected. */
+    public void toggleSectionAt(int headerPosition) {
+        if (!isHeaderPosition(headerPosition)) return;
+        int section = sections.sectionAt(headerPosition);
+        int from = sections.sectionStartRow(section);
+        int to = section + 1 < sections.sectionCount()
+                ? sections.sectionStartRow(section + 1) : sections.rowCount();
+        boolean allSelected = true;
+        for (int row = from; row < to && allSelected; row++) {
+            allSelected = selection.contains(table.id(row));
+        }
+        setRowsSelected(from, to, !allSelected);
+    }
+
+    public void selectAll() {
+        if (mode != Mode.GRID) return;
+        if (!isSelectionMode) enterSelectionMode();
+        setRowsSelected(0, sections.rowCount(), true);
     }
 
-    public void toggleSelectionByPosition(int position) {
-        if (mode != Mode.GRID || position < 0 || position >= grouped.size()) return;
-        MediaGroupedItem item = grouped.get(position);
-        if (item.getType() == TYPE_MEDIA) {
-            Uri uri = item.getMedia().getUri();
-            if (selectedItems.contains(uri)) {
-                selectedItems.remove(uri);
+    private void setRowsSelected(int from, int to, boolean selected) {
+        if (from >= to) return;
+        for (int row = from; row < to; row++) {
+            if (selected) {
+                selection.add(table.id(row), table.isVideo(row));
             } else {
-                selectedItems.add(uri);
+                selection.remove(table.id(row));
             }
-            notifyItemChanged(position);
-            if (selectionListener != null) selectionListener.onSelectionChanged(selectedItems);
         }
+        notifyRowRange(from, to - 1);
+        notifySelectionCount();
+        if (selection.isEmpty() && isSelectionMode) exitSelectionMode();
+    }
+
+    private void changeDragRows(int from, int to, boolean entering) {
+        for (int row = from; row <= to; row++) {
+            if (selection.contains(table.id(row)) != dragSelects) {
+                dragDelta += entering == dragSelects ? 1 : -1;
+            }
+        }
+        notifyRowRange(from, to);
+    }
+
+    /** One range notification for rows {@code from..to}, headers in between included. */
+    private void notifyRowRange(int from, int to) {
+        int start = sections.positionOfRow(from);
+        notifyItemRangeChanged(start, sections.positionOfRow(to) - start + 1, PAYLOAD_SELECTION);
+    }
+
+    private boolean isRowSelected(int row) {
+        if (dragAnchor >= 0 && row >= dragLo && row <= dragHi) return dragSelects;
+        return selection.contains(table.id(row));
+    }
+
+    private void notifySelectionCount() {
+        if (selectionListener != null) selectionListener.onSelectionChanged(getSelectionCount());
+    }
+
+    public void clearSelection() {
+        dragAnchor = -1;
+        selection.clear();
+        isSelectionMode = false;
+        if (selectionListener != null) {
+            selectionListener.onSelectionChanged(0);
+            selectionListener.onSelectionModeChanged(false);
+        }
+        notifyItemRangeChanged(0, getItemCount(), PAYLOAD_SELECTION);
+    }
+
+    public boolean isSelectionMode() {
+        return isSelectionMode;
     }
 
     private void openVideo(Uri uri) {
@@ -405,21 +862,11 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
         }
     }
 
-    private void openViewer(int adapterPos, String transitionName, ImageView shared) {
-        ArrayList<Uri> imgs = new ArrayList<>();
-        int clickIdx = -1;
-
-        for (int i = 0; i < grouped.size(); i++) {
-            MediaGroupedItem g = grouped.get(i);
-            if (g.getType() == TYPE_MEDIA && !g.getMedia().isVideo()) {
-                if (i == adapterPos)
-                    clickIdx = imgs.size();
-                imgs.add(g.getMedia().getUri());
-            }
-        }
-
-        // 1. Store the heavy list in memory safely, just like the GridAdapter
-        SharedData.currentImageUris = imgs;
+    private void openViewer(int row, String transitionName, ImageView shared) {
+        // 1. Hand the viewer a view over the table's photos rather than a copied Uri list
+        MediaRepository.get(context).setViewerItems(table.imageUris(),
+                table.imageThumbnailKeys(ThumbnailPyramid.Level.SCREEN));
+        int clickIdx = table.imageIndexOf(row);
 
         // 2. Launch the intent with only the lightweight positioning data
         Intent it = new Intent(context, PhotoViewActivity.class);
@@ -434,13 +881,14 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     /* ---------- helpers ---------- */
 
     /* ---------- span-helper ---------- */
-    public GridLayoutManager.SpanSizeLookup spanLookup() {
+    /** Headers take a full row of {@code lm}, whatever its span count is zoomed to. */
+    public GridLayoutManager.SpanSizeLookup spanLookup(GridLayoutManager lm) {
         if (mode != Mode.GRID)
             return null;
         return new GridLayoutManager.SpanSizeLookup() {
             @Override
             public int getSpanSize(int pos) {
-                return getItemViewType(pos) == TYPE_HEADER ? 3 : 1;
+                return getItemViewType(pos) == TYPE_HEADER ? lm.getSpanCount() : 1;
             }
         };
     }
@@ -451,11 +899,52 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     }
 
     public interface OnSelectionChangedListener {
-        void onSelectionChanged(List<Uri> selectedItems);
+        void onSelectionChanged(int selectedCount);
 
         void onSelectionModeChanged(boolean isSelectionMode);
     }
 
+    /* ---------- grid diff ---------- */
+    /** Cells match by stable id: a photo with the same _ID is the same cell and needs no rebind. */
+    private static final class GridDiff extends DiffUtil.Callback {
+        private final MediaTable oldTable, newTable;
+        private final SectionIndex oldSections, newSections;
+
+        GridDiff(MediaTable oldTable, SectionIndex oldSections,
+                 MediaTable newTable, SectionIndex newSections) {
+            this.oldTable = oldTable;
+            this.oldSections = oldSections;
+            this.newTable = newTable;
+            this.newSections = newSections;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldSections.itemCount();
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newSections.itemCount();
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldPos, int newPos) {
+            return idAt(oldTable, oldSections, oldPos) == idAt(newTable, newSections, newPos);
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldPos, int newPos) {
+            // Same id means the same photo; headers also need the same label
+            return !oldSections.isHeader(oldPos)
+                    || oldSections.label(oldPos).equals(newSections.label(newPos));
+        }
+
+        private static long idAt(MediaTable table, SectionIndex sections, int pos) {
+            return sections.isHeader(pos) ? headerId(sections.label(pos)) : table.id(sections.rowAt(pos));
+        }
+    }
+
     /* ---------- view-holders ---------- */
     static class HeaderHolder extends RecyclerView.ViewHolder {
         TextView headerText;
@@ -469,6 +958,8 @@ public class PhotoAdapter extends RecyclerView.Adapter<RecyclerView.ViewHolder>
     static class GridHolder extends RecyclerView.ViewHolder {
         ImageView imageView, playIcon, checkIcon;
         View videoOverlay, selectionOverlay;
+        Target<Drawable> fullSizeWarmup; // viewer decode started on touch-down
+        boolean deferred; // showing a fast-scroll placeholder, real thumbnail not requested yet
 
         GridHolder(@NonNull View v) {
             super(v);
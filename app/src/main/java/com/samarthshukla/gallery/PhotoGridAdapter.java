@@ -71,7 +71,7 @@ public class PhotoGridAdapter extends RecyclerView.Adapter<PhotoGridAdapter.Phot
                 }
 
                 // 2. Safely store the massive list in memory, not the Intent
-                SharedData.currentImageUris = allUris;
+                MediaRepository.get(context).setViewerItems(allUris, null);
 
                 // 3. Launch the Viewer
                 Intent intent = new Intent(context, PhotoViewActivity.class);
@@ -106,7 +106,8 @@ public class PhotoViewActivity extends AppCompatActivity {
         }
 
         /* ───────── Set up adapter & pager ───────── */
-        List<Uri> imageUris = SharedData.currentImageUris;
+        MediaRepository repository = MediaRepository.get(this);
+        List<Uri> imageUris = repository.viewerUris();
         if (imageUris == null) {
             imageUris = new ArrayList<>();
         }
@@ -114,7 +115,10 @@ public class PhotoViewActivity extends AppCompatActivity {
         int startPosition = getIntent().getIntExtra(EXTRA_START_POSITION, 0);
         transitionName = getIntent().getStringExtra("transition_name");
 
-        PhotoAdapter adapter = PhotoAdapter.forViewer(this, imageUris);
+        List<ThumbnailPyramid.Key> imageKeys = repository.viewerKeys();
+        PhotoAdapter adapter = imageKeys != null && imageKeys.size() == imageUris.size()
+                ? PhotoAdapter.forViewer(this, imageUris, imageKeys)
+                : PhotoAdapter.forViewer(this, imageUris);
         viewPager.setAdapter(adapter);
         viewPager.setCurrentItem(startPosition, false);
 
@@ -332,8 +336,8 @@ public class PhotoViewActivity extends AppCompatActivity {
     /* ───────── Helper: get current image URI ───────── */
     /* ───────── Helper: get current image URI ───────── */
     public Uri getCurrentImageUri() {
-        // Look in SharedData instead of the Intent!
-        List<Uri> imageUris = SharedData.currentImageUris;
+        // The list comes from the repository, not the Intent
+        List<Uri> imageUris = MediaRepository.get(this).viewerUris();
 
         if (imageUris != null && !imageUris.isEmpty()) {
             int currentPosition = viewPager.getCurrentItem();
@@ -1,17 +1,14 @@
 package com.samarthshukla.gallery;
 
 import android.Manifest;
-import android.content.ContentUris;
+import android.app.PendingIntent;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.graphics.Color;
 import android.graphics.Rect;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
-import android.provider.MediaStore;
-import android.text.format.DateFormat;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -23,12 +20,10 @@ import android.animation.Animator;
 import android.animation.AnimatorListenerAdapter;
 import android.view.animation.AlphaAnimation;
 import android.view.animation.ScaleAnimation;
-import android.os.Handler;
-import android.os.Looper;
-import android.view.MotionEvent;
 import java.util.HashSet;
 
 import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.IntentSenderRequest;
 import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
@@ -38,19 +33,15 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Calendar;
-import java.util.Collections;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import android.os.Vibrator;
 import android.os.VibrationEffect;
 import com.google.android.material.snackbar.Snackbar;
 
 public class PhotosFragment extends Fragment {
 
-    private final List<MediaItem> mediaItems = new ArrayList<>();
-    private final List<MediaGroupedItem> groupedItems = new ArrayList<>();
+    private MediaRepository repository;
+    private MediaTable shownTable; // table the adapter was last given
 
     private RecyclerView recyclerView;
     private PhotoAdapter adapter;
@@ -58,6 +49,8 @@ public class PhotosFragment extends Fragment {
     private Button btnAll, btnDays, btnMonths, btnYears;
     private View selectedBackground;
     private TextView tvSortDate;
+    private DateScrubber dateScrubber;
+    private FastScrollController fastScroll;
     
     // Selection functionality
     private View bottomActionBar;
@@ -66,6 +59,8 @@ public class PhotosFragment extends Fragment {
 
     private ActivityResultLauncher<String> singlePermissionLauncher;
     private ActivityResultLauncher<String[]> multiplePermissionLauncher;
+    private ActivityResultLauncher<IntentSenderRequest> trashConsentLauncher;
+    private int pendingTrashCount;
 
     private View floatingActionBoxInclude;
     private View fabDimOverlay;
@@ -79,6 +74,26 @@ public class PhotosFragment extends Fragment {
     private View headerContainer;
     private View filterContainer;
 
+    private DateBucketer.Granularity granularity = DateBucketer.Granularity.ALL;
+    private GroupIndex groups = GroupIndex.EMPTY;
+
+
+    // Pages are pulled in ahead of the viewport; faster flings reach further ahead
+    private static final int PREFETCH_MIN_ITEMS = 90;
+    private static final int PREFETCH_ITEMS_PER_PX = 2;
+    private final RecyclerView.OnScrollListener pagePrefetcher = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            if (dy <= 0 || repository.isEndReached()) return;
+            GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+            if (lm == null) return;
+            int remaining = adapter.getItemCount() - lm.findLastVisibleItemPosition();
+            if (remaining < PREFETCH_MIN_ITEMS + dy * PREFETCH_ITEMS_PER_PX) {
+                repository.loadNext();
+            }
+        }
+    };
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container, Bundle savedInstanceState) {
         View view = inflater.inflate(R.layout.fragment_photos, container, false);
@@ -90,6 +105,7 @@ public class PhotosFragment extends Fragment {
         btnMonths = view.findViewById(R.id.btnMonths);
         btnYears = view.findViewById(R.id.btnYears);
         tvSortDate = view.findViewById(R.id.tvSortDate);
+        dateScrubber = view.findViewById(R.id.dateScrubber);
         selectedBackground = view.findViewById(R.id.selectedBackground);
         headerContainer = view.findViewById(R.id.headerContainer);
         filterContainer = view.findViewById(R.id.filterContainer);
@@ -109,11 +125,19 @@ public class PhotosFragment extends Fragment {
         }
 
         // Set adapter
-        adapter = PhotoAdapter.forGrid(requireContext(), groupedItems);
+        adapter = PhotoAdapter.forGrid(requireContext(), new MediaTable());
         GridLayoutManager layoutManager = new GridLayoutManager(requireContext(), 3);
-        layoutManager.setSpanSizeLookup(adapter.spanLookup());
+        layoutManager.setSpanSizeLookup(adapter.spanLookup(layoutManager));
         recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        repository = MediaRepository.get(requireContext());
+        repository.timeline().observe(getViewLifecycleOwner(), this::onTimeline);
+        recyclerView.addOnScrollListener(pagePrefetcher);
+        fastScroll = new FastScrollController(adapter);
+        recyclerView.addOnScrollListener(fastScroll); // ahead of the preloader, which it pauses
+        recyclerView.addOnScrollListener(new GridPreloader(adapter));
+        recyclerView.addOnScrollListener(scrubberSync);
+        dateScrubber.setOnScrubListener(scrubListener);
         
         // Initialize selection functionality
         bottomActionBar = view.findViewById(R.id.bottomActionBar);
@@ -137,8 +161,8 @@ public class PhotosFragment extends Fragment {
         // Set selection listener
         adapter.setOnSelectionChangedListener(new PhotoAdapter.OnSelectionChangedListener() {
             @Override
-            public void onSelectionChanged(List<Uri> selectedItems) {
-                updateSelectionMenu(selectedItems);
+            public void onSelectionChanged(int selectedCount) {
+                updateSelectionMenu(selectedCount);
             }
             
             @Override
@@ -191,71 +215,19 @@ public class PhotosFragment extends Fragment {
         }
 
         // --- Gesture-based multi-select ---
-        recyclerView.addOnItemTouchListener(new RecyclerView.OnItemTouchListener() {
-            boolean isSelecting = false;
-            boolean longPressTriggered = false;
-            int initialPosition = -1;
-            int lastToggledPosition = -1;
-            Handler handler = new Handler(Looper.getMainLooper());
-            Runnable longPressRunnable;
-
-            @Override
-            public boolean onInterceptTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {
-                switch (e.getActionMasked()) {
-                    case MotionEvent.ACTION_DOWN: {
-                        longPressTriggered = false;
-                        isSelecting = false;
-                        initialPosition = -1;
-                        lastToggledPosition = -1;
-                        View child = rv.findChildViewUnder(e.getX(), e.getY());
-                        if (child != null) {
-                            initialPosition = rv.getChildAdapterPosition(child);
-                            longPressRunnable = () -> {
-                                if (initialPosition != RecyclerView.NO_POSITION && !adapter.isSelectionMode()) {
-                                    adapter.enterSelectionMode();
-                                    adapter.toggleSelectionByPosition(initialPosition);
-                                    lastToggledPosition = initialPosition;
-                                    isSelecting = true;
-                                    longPressTriggered = true;
-                                }
-                            };
-                            handler.postDelayed(longPressRunnable, 250); // Fast long-press
-                        }
-                        break;
-                    }
-                    case MotionEvent.ACTION_MOVE: {
-                        if (adapter.isSelectionMode() && (isSelecting || longPressTriggered)) {
-                            View child = rv.findChildViewUnder(e.getX(), e.getY());
-                            if (child != null) {
-                                int pos = rv.getChildAdapterPosition(child);
-                                if (pos != RecyclerView.NO_POSITION && pos != lastToggledPosition) {
-                                    adapter.toggleSelectionByPosition(pos);
-                                    lastToggledPosition = pos;
-                                }
-                            }
-                        }
-                        break;
-                    }
-                    case MotionEvent.ACTION_UP:
-                    case MotionEvent.ACTION_CANCEL: {
-                        handler.removeCallbacks(longPressRunnable);
-                        isSelecting = false;
-                        longPressTriggered = false;
-                        lastToggledPosition = -1;
-                        break;
-                    }
-                }
-                return false;
-            }
-            @Override
-            public void onTouchEvent(@NonNull RecyclerView rv, @NonNull MotionEvent e) {}
-            @Override
-            public void onRequestDisallowInterceptTouchEvent(boolean disallowIntercept) {}
-        });
+        recyclerView.addOnItemTouchListener(new DragSelectController(recyclerView, adapter));
+        // After the multi-select listener, so it sees the second finger and drops its long-press
+        recyclerView.addOnItemTouchListener(new GridZoomController(recyclerView, adapter));
 
         return view;
     }
     
+    @Override
+    public void onDestroyView() {
+        shownTable = null;
+        super.onDestroyView();
+    }
+
     @Override
     public void onResume() {
         super.onResume();
@@ -291,6 +263,15 @@ public class PhotosFragment extends Fragment {
                     else
                         Toast.makeText(requireContext(), "Permission denied", Toast.LENGTH_SHORT).show();
                 });
+
+        trashConsentLauncher = registerForActivityResult(new ActivityResultContracts.StartIntentSenderForResult(),
+                result -> {
+                    if (result.getResultCode() == android.app.Activity.RESULT_OK) {
+                        Toast.makeText(requireContext(), pendingTrashCount + " item(s) moved to Recycle Bin", Toast.LENGTH_LONG).show();
+                        adapter.clearSelection();
+                        repository.refresh();
+                    }
+                });
     }
 
     private boolean hasPermission() {
@@ -331,84 +312,79 @@ public class PhotosFragment extends Fragment {
     }
 
     public void loadMedia() {
-        new Thread(() -> {
-            List<MediaItem> items = new ArrayList<>();
-            items.addAll(fetchMedia(MediaStore.Images.Media.EXTERNAL_CONTENT_URI, false));
-            items.addAll(fetchMedia(MediaStore.Video.Media.EXTERNAL_CONTENT_URI, true));
-
-            // Sort by date descending
-            Collections.sort(items, (a, b) -> Long.compare(b.getDateAdded(), a.getDateAdded()));
-
-            mediaItems.clear();
-            mediaItems.addAll(items);
-
-            requireActivity().runOnUiThread(() -> buildGroupedList("ALL"));
-        }).start();
+        repository.start(); // once per process; a recreated fragment just observes the timeline
     }
 
-    private List<MediaItem> fetchMedia(Uri uri, boolean isVideo) {
-        List<MediaItem> list = new ArrayList<>();
-        String[] projection = {
-                MediaStore.Files.FileColumns._ID,
-                MediaStore.Files.FileColumns.DATE_ADDED
-        };
-        String selection = MediaStore.MediaColumns.RELATIVE_PATH + " LIKE ?";
-        String[] args = new String[] { "%DCIM/Camera%" };
+    private void onTimeline(MediaRepository.Timeline timeline) {
+        this.groups = timeline.groups;
+        SectionIndex sections = groups.sections(granularity);
+        // An append only extends what this adapter shows if it was built on the same table
+        if (timeline.appended && timeline.table == shownTable) {
+            adapter.appendSections(sections);
+        } else {
+            adapter.submit(timeline.table, sections); // deletes and restores animate; kept cells are not rebound
+        }
+        shownTable = timeline.table;
+    }
 
-        try (Cursor cursor = requireContext().getContentResolver().query(uri, projection, selection, args, null)) {
-            if (cursor != null) {
-                int idIndex = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns._ID);
-                int dateIndex = cursor.getColumnIndexOrThrow(MediaStore.MediaColumns.DATE_ADDED);
+    /* ---------- date scrubber ---------- */
+
+    // Moves the scrubber thumb with the grid
+    private final RecyclerView.OnScrollListener scrubberSync = new RecyclerView.OnScrollListener() {
+        @Override
+        public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+            if (dy == 0 || groups.rowCount() < 2) return;
+            GridLayoutManager lm = (GridLayoutManager) rv.getLayoutManager();
+            int first = lm.findFirstVisibleItemPosition();
+            if (first == RecyclerView.NO_POSITION) return;
+            int row = groups.sections(granularity).anchorRow(first);
+            dateScrubber.setFraction(row / (float) (groups.rowCount() - 1));
+        }
+    };
 
-                while (cursor.moveToNext()) {
-                    long id = cursor.getLong(idIndex);
-                    long dateAdded = cursor.getLong(dateIndex) * 1000L;
-                    Uri contentUri = ContentUris.withAppendedId(uri, id);
+    private final DateScrubber.OnScrubListener scrubListener = new DateScrubber.OnScrubListener() {
+        @Override
+        public void onScrubStarted() {
+            fastScroll.setScrubbing(recyclerView, true);
+        }
 
-                    list.add(new MediaItem(contentUri, isVideo, dateAdded, dateAdded));
-                }
-            }
+        @Override
+        public void onScrub(float fraction) {
+            int rows = groups.rowCount();
+            if (rows == 0) return;
+            int row = Math.min(rows - 1, (int) (fraction * rows));
+            dateScrubber.setLabel(scrubLabel(row));
+            GridLayoutManager lm = (GridLayoutManager) recyclerView.getLayoutManager();
+            lm.scrollToPositionWithOffset(groups.sections(granularity).positionOfRow(row), 0);
+            // Only loaded pages are indexed; reaching the bottom pulls in the next one
+            if (fraction > 0.95f && !repository.isEndReached()) repository.loadNext();
         }
 
-        return list;
+        @Override
+        public void onScrubEnded() {
+            fastScroll.setScrubbing(recyclerView, false);
+        }
+    };
+
+    /** Date under a row, from the group index: months for the ungrouped view, else the shown granularity. */
+    private String scrubLabel(int row) {
+        SectionIndex labels = groups.sections(granularity == DateBucketer.Granularity.ALL
+                ? DateBucketer.Granularity.MONTH : granularity);
+        int section = labels.sectionOfRow(row);
+        return section >= 0 ? labels.sectionLabel(section) : "";
     }
 
-    private void buildGroupedList(String mode) {
-        groupedItems.clear();
-
-        Map<String, List<MediaItem>> groupedMap = new LinkedHashMap<>();
-        for (MediaItem item : mediaItems) {
-            Calendar calendar = Calendar.getInstance();
-            calendar.setTimeInMillis(item.getDateAdded());
-
-            String key;
-            switch (mode) {
-                case "DAY":
-                    key = DateFormat.format("MMMM dd, yyyy", calendar).toString();
-                    break;
-                case "MONTH":
-                    key = DateFormat.format("MMMM yyyy", calendar).toString();
-                    break;
-                case "YEAR":
-                    key = String.valueOf(calendar.get(Calendar.YEAR));
-                    break;
-                default:
-                    key = "All Photos";
-            }
-
-            groupedMap.computeIfAbsent(key, k -> new ArrayList<>()).add(item);
-        }
+    /** Day, month and year sections are all precomputed, so switching is a swap of headers only. */
+    private void showGranularity() {
+        GridLayoutManager lm = (GridLayoutManager) recyclerView.getLayoutManager();
+        int first = lm.findFirstVisibleItemPosition();
+        View anchorView = lm.findViewByPosition(first);
+        int offset = anchorView != null ? anchorView.getTop() : 0;
 
-        for (Map.Entry<String, List<MediaItem>> entry : groupedMap.entrySet()) {
-            if (!entry.getKey().equals("All Photos")) {
-                groupedItems.add(new MediaGroupedItem(MediaGroupedItem.TYPE_HEADER, entry.getKey()));
-            }
-            for (MediaItem item : entry.getValue()) {
-                groupedItems.add(new MediaGroupedItem(MediaGroupedItem.TYPE_MEDIA, item));
-            }
+        int anchor = adapter.swapSections(groups.sections(granularity), first);
+        if (anchor != RecyclerView.NO_POSITION) {
+            lm.scrollToPositionWithOffset(anchor, offset);
         }
-
-        adapter.notifyDataSetChanged();
     }
 
     private void setupFilterButtons() {
@@ -420,17 +396,18 @@ public class PhotosFragment extends Fragment {
 
             if (btn == btnAll) {
                 tvSortDate.setText("All Photos");
-                buildGroupedList("ALL");
+                granularity = DateBucketer.Granularity.ALL;
             } else if (btn == btnDays) {
                 tvSortDate.setText("Grouped by Day");
-                buildGroupedList("DAY");
+                granularity = DateBucketer.Granularity.DAY;
             } else if (btn == btnMonths) {
                 tvSortDate.setText("Grouped by Month");
-                buildGroupedList("MONTH");
+                granularity = DateBucketer.Granularity.MONTH;
             } else if (btn == btnYears) {
                 tvSortDate.setText("Grouped by Year");
-                buildGroupedList("YEAR");
+                granularity = DateBucketer.Granularity.YEAR;
             }
+            showGranularity();
         };
 
         for (Button b : allButtons)
@@ -468,10 +445,15 @@ public class PhotosFragment extends Fragment {
     private void setupSelectionMenu() {
         if (bottomActionBar != null) {
             // Find the buttons in the included layout
+            View selectAllButton = bottomActionBar.findViewById(R.id.btnSelectAll);
             View cancelButton = bottomActionBar.findViewById(R.id.btnCancel);
             View shareButton = bottomActionBar.findViewById(R.id.btnShare);
             View deleteButton = bottomActionBar.findViewById(R.id.btnDelete);
             
+            if (selectAllButton != null) {
+                selectAllButton.setOnClickListener(v -> adapter.selectAll());
+            }
+
             if (cancelButton != null) {
                 cancelButton.setOnClickListener(v -> {
                     // Exit selection mode
@@ -533,19 +515,19 @@ public class PhotosFragment extends Fragment {
     
 
     
-    private void updateSelectionMenu(List<Uri> selectedItems) {
+    private void updateSelectionMenu(int selectedCount) {
         // Update menu based on selection count
         if (tvSelectionCount != null) {
-            tvSelectionCount.setText(selectedItems.size() + " selected");
+            tvSelectionCount.setText(selectedCount + " selected");
         }
         
         // Ensure the menu stays visible when items are selected
-        if (!selectedItems.isEmpty() && bottomActionBar != null && bottomActionBar.getVisibility() != View.VISIBLE) {
+        if (selectedCount > 0 && bottomActionBar != null && bottomActionBar.getVisibility() != View.VISIBLE) {
             showSelectionMenu();
         }
         
         // Keep the menu visible as long as there are selected items
-        if (selectedItems.isEmpty() && bottomActionBar != null && bottomActionBar.getVisibility() == View.VISIBLE) {
+        if (selectedCount == 0 && bottomActionBar != null && bottomActionBar.getVisibility() == View.VISIBLE) {
             // Only hide if we're not in selection mode
             if (!adapter.isSelectionMode()) {
                 hideSelectionMenu();
@@ -554,7 +536,7 @@ public class PhotosFragment extends Fragment {
 
         // Floating action box logic with animation
         if (floatingActionBoxInclude != null && fabActionBox != null && fabDimOverlay != null) {
-            if (selectedItems.size() == 1) {
+            if (selectedCount == 1) {
                 if (fabActionBox.getVisibility() != View.VISIBLE) {
                     fabActionBox.setVisibility(View.VISIBLE);
                     fabDimOverlay.setVisibility(View.VISIBLE);
@@ -577,20 +559,20 @@ public class PhotosFragment extends Fragment {
                     fabDimOverlay.setVisibility(View.GONE);
                 }
                 // Bottom bar fade in/out
-                if (!selectedItems.isEmpty() && bottomActionBar != null) {
+                if (selectedCount > 0 && bottomActionBar != null) {
                     if (bottomActionBar.getVisibility() != View.VISIBLE) {
                         bottomActionBar.setAlpha(0f);
                         bottomActionBar.setVisibility(View.VISIBLE);
                         bottomActionBar.animate().alpha(1f).setDuration(200).start();
                     }
-                } else if (selectedItems.isEmpty() && bottomActionBar != null && bottomActionBar.getVisibility() == View.VISIBLE) {
+                } else if (selectedCount == 0 && bottomActionBar != null && bottomActionBar.getVisibility() == View.VISIBLE) {
                     bottomActionBar.animate().alpha(0f).setDuration(150).withEndAction(() -> bottomActionBar.setVisibility(View.GONE)).start();
                 }
             }
         }
         // Animate selection count
         if (tvSelectionCount != null) {
-            int newCount = selectedItems.size();
+            int newCount = selectedCount;
             tvSelectionCount.setText(newCount + " selected");
             if (lastSelectionCount != newCount) {
                 tvSelectionCount.setScaleX(1.15f);
@@ -599,14 +581,14 @@ public class PhotosFragment extends Fragment {
             }
         }
         // Snackbar for selection mode entry/clear
-        if (!selectionSnackbarShown && selectedItems.size() > 0) {
+        if (!selectionSnackbarShown && selectedCount > 0) {
             View root = getView();
             if (root != null) {
                 Snackbar.make(root, "Selection mode enabled. Tap or drag to select more.", Snackbar.LENGTH_SHORT).show();
                 selectionSnackbarShown = true;
             }
         }
-        if (selectionSnackbarShown && selectedItems.isEmpty()) {
+        if (selectionSnackbarShown && selectedCount == 0) {
             View root = getView();
             if (root != null) {
                 Snackbar.make(root, "Selection cleared.", Snackbar.LENGTH_SHORT).show();
@@ -614,7 +596,7 @@ public class PhotosFragment extends Fragment {
             selectionSnackbarShown = false;
         }
         // Haptic feedback on selection
-        if (selectedItems.size() > lastSelectionCount) {
+        if (selectedCount > lastSelectionCount) {
             try {
                 Vibrator v = (Vibrator) requireContext().getSystemService(android.content.Context.VIBRATOR_SERVICE);
                 if (v != null && v.hasVibrator()) {
@@ -626,11 +608,11 @@ public class PhotosFragment extends Fragment {
                 }
             } catch (Exception ignore) {}
         }
-        lastSelectionCount = selectedItems.size();
+        lastSelectionCount = selectedCount;
 
         // Only hide/show filter bar based on selection mode
         if (filterContainer != null) {
-            if (selectedItems.size() > 0) {
+            if (selectedCount > 0) {
                 filterContainer.setVisibility(View.GONE);
             } else {
                 filterContainer.setVisibility(View.VISIBLE);
@@ -683,32 +665,6 @@ public class PhotosFragment extends Fragment {
         
         android.util.Log.d("PhotosFragment", "Attempting to delete " + selectedItems.size() + " images");
         
-        // Check permissions first
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R && !android.os.Environment.isExternalStorageManager()) {
-            // Show permission request dialog
-            new androidx.appcompat.app.AlertDialog.Builder(requireContext())
-                    .setTitle("Permission Required")
-                    .setMessage("To delete images, this app needs 'Manage all files' permission.\n\n" +
-                            "1. Tap 'Grant Permission'\n" +
-                            "2. Find this app in the list\n" +
-                            "3. Enable 'Allow management of all files'\n" +
-                            "4. Return to this app and try deleting again")
-                    .setPositiveButton("Grant Permission", (dialog, which) -> {
-                        try {
-                            Intent intent = new Intent(android.provider.Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
-                            intent.setData(android.net.Uri.parse("package:" + requireContext().getPackageName()));
-                            startActivity(intent);
-                        } catch (Exception e) {
-                            // Fallback to general storage settings
-                            Intent intent = new Intent(android.provider.Settings.ACTION_MANAGE_ALL_FILES_ACCESS_PERMISSION);
-                            startActivity(intent);
-                        }
-                    })
-                    .setNegativeButton("Cancel", null)
-                    .show();
-            return;
-        }
-        
         // Show confirmation dialog
         new androidx.appcompat.app.AlertDialog.Builder(requireContext())
                 .setTitle("Delete Images")
@@ -721,96 +677,55 @@ public class PhotosFragment extends Fragment {
     }
     
     private void performDelete(List<Uri> selectedItems) {
-        Toast.makeText(requireContext(), "Moving images to Recycle Bin...", Toast.LENGTH_SHORT).show();
-        
-        // Check if we have delete permission
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R) {
-            if (!android.os.Environment.isExternalStorageManager()) {
-                // Show dialog to guide user to settings
-                new androidx.appcompat.app.AlertDialog.Builder(requireContext())
-                        .setTitle("Permission Required")
-                        .setMessage("To delete images, this app needs 'Manage all files' permission.\n\n" +
-                                "1. Tap 'Open Settings'\n" +
-                                "2. Find this app in the list\n" +
-                                "3. Enable 'Allow management of all files'\n" +
-                                "4. Return to this app and try deleting again")
-                        .setPositiveButton("Open Settings", (dialog, which) -> {
-                            try {
-                                Intent intent = new Intent(android.provider.Settings.ACTION_MANAGE_APP_ALL_FILES_ACCESS_PERMISSION);
-                                intent.setData(android.net.Uri.parse("package:" + requireContext().getPackageName()));
-                                startActivity(intent);
-                            } catch (Exception e) {
-                                // Fallback to general storage settings
-                                Intent intent = new Intent(android.provider.Settings.ACTION_MANAGE_ALL_FILES_ACCESS_PERMISSION);
-                                startActivity(intent);
-                            }
-                        })
-                        .setNegativeButton("Cancel", null)
-                        .show();
-                return;
-            }
+        // Without all-files access Android 11+ asks the user; the system trashes them on approval
+        PendingIntent consent = recycleBinManager.trashConsentRequest(selectedItems);
+        if (consent != null) {
+            pendingTrashCount = selectedItems.size();
+            trashConsentLauncher.launch(new IntentSenderRequest.Builder(consent.getIntentSender()).build());
+            return;
         }
+        Toast.makeText(requireContext(), "Moving images to Recycle Bin...", Toast.LENGTH_SHORT).show();
         
-        // Run deletion on background thread
-        new Thread(() -> {
-            int successCount = 0;
-            int totalCount = selectedItems.size();
-            
-            for (int i = 0; i < selectedItems.size(); i++) {
-                Uri uri = selectedItems.get(i);
-                android.util.Log.d("PhotosFragment", "Attempting to delete image " + (i + 1) + " of " + totalCount + ": " + uri);
-                
-                if (recycleBinManager.moveToRecycleBin(uri, false)) {
-                    successCount++;
-                    android.util.Log.d("PhotosFragment", "Successfully deleted image " + (i + 1));
-                } else {
-                    android.util.Log.e("PhotosFragment", "Failed to delete image " + (i + 1) + ": " + uri);
-                }
-                
-                // Add delay between deletions to prevent conflicts
-                if (i < selectedItems.size() - 1) {
+        // Run deletion in the background; the moves finish even if the screen goes away
+        final List<Uri> toDelete = new ArrayList<>(selectedItems); // the selection changes on the main thread
+        final int totalCount = toDelete.size();
+        final Snackbar progressBar = getView() != null && totalCount > 1
+                ? Snackbar.make(getView(), "Moving 0 of " + totalCount + " to Recycle Bin...", Snackbar.LENGTH_INDEFINITE)
+                : null;
+        if (progressBar != null) progressBar.show();
+        final View progressView = progressBar != null ? progressBar.getView() : null;
+        final RecycleBinManager.ProgressListener progress = progressView == null ? null : (done, total) ->
+                progressView.post(() -> progressBar.setText("Moving " + done + " of " + total + " to Recycle Bin..."));
+        BackgroundExecutor.io().submit(getViewLifecycleOwner(), BackgroundExecutor.Lane.USER,
+                () -> {
                     try {
-                        Thread.sleep(500); // 500ms delay
-                    } catch (InterruptedException e) {
-                        Thread.currentThread().interrupt();
-                        break;
-                    }
-                }
-            }
-            
-            final int finalSuccessCount = successCount;
-            final int finalTotalCount = totalCount;
-            
-            // Update UI on main thread
-            requireActivity().runOnUiThread(() -> {
-                if (finalSuccessCount > 0) {
-                    if (finalSuccessCount == finalTotalCount) {
-                        Toast.makeText(requireContext(), "All " + finalSuccessCount + " image(s) moved to Recycle Bin", Toast.LENGTH_LONG).show();
-                    } else {
-                        Toast.makeText(requireContext(), finalSuccessCount + " of " + finalTotalCount + " image(s) moved to Recycle Bin", Toast.LENGTH_LONG).show();
+                        return recycleBinManager.moveToRecycleBin(toDelete, progress);
+                    } catch (Exception e) {
+                        // Still report back, so the progress Snackbar goes away and the failure shows
+                        android.util.Log.e("PhotosFragment", "Moving to Recycle Bin failed", e);
+                        return 0;
                     }
-                    adapter.clearSelection();
-                    loadMedia(); // Refresh the gallery
+                }, successCount -> {
+            // Main thread, and only while this view is alive
+            if (progressBar != null) progressBar.dismiss();
+            if (successCount > 0) {
+                if (successCount == totalCount) {
+                    Toast.makeText(requireContext(), "All " + successCount + " image(s) moved to Recycle Bin", Toast.LENGTH_LONG).show();
                 } else {
-                    Toast.makeText(requireContext(), "Failed to delete any images. Check logs for details.", Toast.LENGTH_LONG).show();
+                    Toast.makeText(requireContext(), successCount + " of " + totalCount + " image(s) moved to Recycle Bin", Toast.LENGTH_LONG).show();
                 }
-            });
-        }).start();
+                adapter.clearSelection();
+                repository.refresh(); // Refresh the gallery
+            } else {
+                Toast.makeText(requireContext(), "Failed to delete any images. Check logs for details.", Toast.LENGTH_LONG).show();
+            }
+        });
     }
     
 
 
 
     
-    private List<Uri> getAllImageUris() {
-        List<Uri> uris = new ArrayList<>();
-        for (MediaGroupedItem item : groupedItems) {
-            if (item.getType() == MediaGroupedItem.TYPE_MEDIA) {
-                uris.add(item.getMedia().getUri());
-            }
-        }
-        return uris;
-    }
 
 
 
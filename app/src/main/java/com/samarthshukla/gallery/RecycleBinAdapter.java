@@ -13,6 +13,7 @@ import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.bumptech.glide.Glide;
+import com.bumptech.glide.request.RequestOptions;
 
 import java.io.File;
 import java.util.ArrayList;
@@ -24,6 +25,7 @@ public class RecycleBinAdapter extends RecyclerView.Adapter<RecycleBinAdapter.Vi
     private final Context context;
     private List<RecycleBinManager.DeletedItem> items = new ArrayList<>();
     private OnItemClickListener listener;
+    private final RequestOptions thumbOptions;
 
     public interface OnItemClickListener {
         void onRestoreClick(RecycleBinManager.DeletedItem item);
@@ -32,6 +34,7 @@ public class RecycleBinAdapter extends RecyclerView.Adapter<RecycleBinAdapter.Vi
 
     public RecycleBinAdapter(Context context) {
         this.context = context;
+        this.thumbOptions = ThumbnailPolicy.recycleBin(context);
     }
 
     public void setItems(List<RecycleBinManager.DeletedItem> items) {
@@ -54,13 +57,18 @@ public class RecycleBinAdapter extends RecyclerView.Adapter<RecycleBinAdapter.Vi
     public void onBindViewHolder(@NonNull ViewHolder holder, int position) {
         RecycleBinManager.DeletedItem item = items.get(position);
         
-        // Load thumbnail
-        File file = new File(item.getRecyclePath());
-        if (file.exists()) {
+        // Load thumbnail; items in the system trash may only be readable through MediaStore
+        String recyclePath = item.getRecyclePath();
+        File file = recyclePath != null ? new File(recyclePath) : null;
+        if (file != null && file.exists()) {
             Glide.with(context)
                     .load(file)
-                    .override(100, 100)
-                    .centerCrop()
+                    .apply(thumbOptions)
+                    .into(holder.imageView);
+        } else if (item.getOriginalPath() != null && item.getOriginalPath().startsWith("content://")) {
+            Glide.with(context)
+                    .load(Uri.parse(item.getOriginalPath()))
+                    .apply(thumbOptions)
                     .into(holder.imageView);
         }
         
@@ -1,5 +1,7 @@
 package com.samarthshukla.gallery;
 
+import android.app.Activity;
+import android.app.PendingIntent;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,6 +11,9 @@ import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.activity.result.ActivityResultLauncher;
+import androidx.activity.result.IntentSenderRequest;
+import androidx.activity.result.contract.ActivityResultContracts;
 import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.recyclerview.widget.LinearLayoutManager;
@@ -23,6 +28,16 @@ public class SearchFragment extends Fragment {
     private RecycleBinManager recycleBinManager;
     private LinearLayout emptyStateLayout;
 
+    // Restores and deletes in the system trash that the user had to confirm
+    private final ActivityResultLauncher<IntentSenderRequest> consentLauncher = registerForActivityResult(
+            new ActivityResultContracts.StartIntentSenderForResult(), result -> {
+                if (result.getResultCode() != Activity.RESULT_OK) return;
+                loadRecycleBinItems();
+                if (getActivity() instanceof MainActivity) {
+                    ((MainActivity) getActivity()).refreshGallery();
+                }
+            });
+
     @Override
     public View onCreateView(@NonNull LayoutInflater inflater, ViewGroup container,
             Bundle savedInstanceState) {
@@ -49,6 +64,11 @@ public class SearchFragment extends Fragment {
             @Override
             public void onRestoreClick(RecycleBinManager.DeletedItem item) {
                 android.util.Log.d("SearchFragment", "Attempting to restore: " + item.getFileName());
+                PendingIntent consent = recycleBinManager.restoreConsentRequest(item);
+                if (consent != null) {
+                    consentLauncher.launch(new IntentSenderRequest.Builder(consent.getIntentSender()).build());
+                    return;
+                }
                 if (recycleBinManager.restoreFromRecycleBin(item)) {
                     Toast.makeText(requireContext(), "File restored", Toast.LENGTH_SHORT).show();
                     android.util.Log.d("SearchFragment", "Restore successful: " + item.getFileName());
@@ -67,6 +87,11 @@ public class SearchFragment extends Fragment {
             @Override
             public void onDeleteClick(RecycleBinManager.DeletedItem item) {
                 android.util.Log.d("SearchFragment", "Attempting to permanently delete: " + item.getFileName());
+                PendingIntent consent = recycleBinManager.deleteConsentRequest(item);
+                if (consent != null) {
+                    consentLauncher.launch(new IntentSenderRequest.Builder(consent.getIntentSender()).build());
+                    return;
+                }
                 if (recycleBinManager.permanentlyDelete(item)) {
                     Toast.makeText(requireContext(), "File permanently deleted", Toast.LENGTH_SHORT).show();
                     android.util.Log.d("SearchFragment", "Permanent delete successful: " + item.getFileName());
@@ -0,0 +1,119 @@
+package com.samarthshukla.gallery;
+
+import java.util.Arrays;
+
+/**
+ * Date sections laid over the rows of a {@link MediaTable}: adapter positions are rows with one
+ * header position in front of every section. Only the section starts are stored, so the grid needs
+ * no per-item wrapper objects; positions and rows are mapped with a binary search.
+ * Instances are immutable and safe to hand from the grouping thread to the UI.
+ */
+public class SectionIndex {
+
+    private final DateBucketer.Granularity granularity;
+    private final int rowCount;
+    private final int sectionCount;
+    private final int[] startRows;       // first row of each section
+    private final int[] headerPositions; // adapter position of each section's header
+    private final String[] labels;
+    private final long lastKey;          // bucket key of the last section, for extending
+
+    SectionIndex(DateBucketer.Granularity granularity, int rowCount,
+                 int[] startRows, String[] labels, int sectionCount, long lastKey) {
+        this.granularity = granularity;
+        this.rowCount = rowCount;
+        this.sectionCount = sectionCount;
+        this.startRows = startRows;
+        this.labels = labels;
+        this.lastKey = lastKey;
+        this.headerPositions = new int[sectionCount];
+        for (int s = 0; s < sectionCount; s++) {
+            headerPositions[s] = startRows[s] + s;
+        }
+    }
+
+    public static SectionIndex empty(DateBucketer.Granularity granularity) {
+        return new SectionIndex(granularity, 0, new int[0], new String[0], 0, 0);
+    }
+
+    /** Every row, no headers. */
+    public static SectionIndex ungrouped(int rowCount) {
+        return new SectionIndex(DateBucketer.Granularity.ALL, rowCount, new int[0], new String[0], 0, 0);
+    }
+
+    public DateBucketer.Granularity granularity() {
+        return granularity;
+    }
+
+    public int rowCount() {
+        return rowCount;
+    }
+
+    public int sectionCount() {
+        return sectionCount;
+    }
+
+    public int itemCount() {
+        return rowCount + sectionCount;
+    }
+
+    public boolean isHeader(int position) {
+        return Arrays.binarySearch(headerPositions, 0, sectionCount, position) >= 0;
+    }
+
+    /** Section the position belongs to, or -1 when there are no sections. */
+    public int sectionAt(int position) {
+        int i = Arrays.binarySearch(headerPositions, 0, sectionCount, position);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    /** Table row shown at a non-header position. */
+    public int rowAt(int position) {
+        return position - (sectionAt(position) + 1);
+    }
+
+    /** Row shown at the position, or the first row under it for a header. */
+    public int anchorRow(int position) {
+        return isHeader(position) ? startRows[sectionAt(position)] : rowAt(position);
+    }
+
+    public int positionOfRow(int row) {
+        return row + sectionOfRow(row) + 1;
+    }
+
+    /** Section holding the row, or -1 when there are no sections. */
+    public int sectionOfRow(int row) {
+        int i = Arrays.binarySearch(startRows, 0, sectionCount, row);
+        return i >= 0 ? i : -i - 2;
+    }
+
+    public String label(int position) {
+        return labels[sectionAt(position)];
+    }
+
+    public String sectionLabel(int section) {
+        return labels[section];
+    }
+
+    public int sectionStartRow(int section) {
+        return startRows[section];
+    }
+
+    public int headerPosition(int section) {
+        return headerPositions[section];
+    }
+
+    /* ---------- package-private, for DateBucketer ---------- */
+
+    int[] startRows() {
+        return startRows;
+    }
+
+    String[] labels() {
+        return labels;
+    }
+
+    long lastKey() {
+        return lastKey;
+    }
+}
@@ -0,0 +1,170 @@
+package com.samarthshukla.gallery;
+
+import android.net.Uri;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The grid's selection: media ids in the order they were selected, with constant-time add, remove
+ * and contains. Ids live in primitive arrays (no boxing, no Uri per entry); an open-addressing
+ * table maps each id to its slot in the insertion order. Removal leaves a hole in the order that
+ * is compacted once holes outnumber live entries, so share and delete still see selection order.
+ * Main thread only.
+ */
+final class SelectionSet {
+
+    private static final int INITIAL_CAPACITY = 16;
+    private static final byte FLAG_VIDEO = MediaTable.FLAG_VIDEO;
+    private static final byte FLAG_REMOVED = (byte) 0x80;
+
+    // Insertion order; removed entries keep their slot, flagged, until the next compaction
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private byte[] flags = new byte[INITIAL_CAPACITY];
+    private int used;
+    private int size;
+
+    // Hash table of order slot + 1; 0 is an empty bucket. At most half full.
+    private int[] table = new int[INITIAL_CAPACITY * 2];
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    boolean contains(long id) {
+        return table[find(id)] != 0;
+    }
+
+    /** @return true if {@code id} was not selected before */
+    boolean add(long id, boolean video) {
+        int bucket = find(id);
+        if (table[bucket] != 0) return false;
+
+        if (used == ids.length) {
+            if (size < used / 2) {
+                compact();
+            } else {
+                ids = Arrays.copyOf(ids, used * 2);
+                flags = Arrays.copyOf(flags, used * 2);
+            }
+            if (ids.length * 2 > table.length) rehash(ids.length * 2);
+            bucket = find(id);
+        }
+        ids[used] = id;
+        flags[used] = video ? FLAG_VIDEO : 0;
+        table[bucket] = ++used;
+        size++;
+        return true;
+    }
+
+    /** @return true if {@code id} was selected */
+    boolean remove(long id) {
+        int bucket = find(id);
+        int slot = table[bucket];
+        if (slot == 0) return false;
+        flags[slot - 1] |= FLAG_REMOVED;
+        size--;
+        deleteBucket(bucket);
+        return true;
+    }
+
+    /** @return true if {@code id} is selected afterwards */
+    boolean toggle(long id, boolean video) {
+        if (remove(id)) return false;
+        add(id, video);
+        return true;
+    }
+
+    void clear() {
+        Arrays.fill(table, 0);
+        used = 0;
+        size = 0;
+    }
+
+    /** Snapshot of the selected Uris in selection order; Uris are built on access. */
+    List<Uri> uris() {
+        final long[] snapshotIds = new long[size];
+        final boolean[] snapshotVideo = new boolean[size];
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if ((flags[i] & FLAG_REMOVED) != 0) continue;
+            snapshotIds[n] = ids[i];
+            snapshotVideo[n] = (flags[i] & FLAG_VIDEO) != 0;
+            n++;
+        }
+        return new AbstractList<Uri>() {
+            @Override
+            public Uri get(int index) {
+                return MediaStoreQuery.contentUri(snapshotIds[index], snapshotVideo[index]);
+            }
+
+            @Override
+            public int size() {
+                return snapshotIds.length;
+            }
+        };
+    }
+
+    /* ---------- hash table ---------- */
+
+    /** Bucket holding {@code id}, or the empty bucket where it would go. */
+    private int find(long id) {
+        int mask = table.length - 1;
+        int bucket = hash(id) & mask;
+        while (table[bucket] != 0 && ids[table[bucket] - 1] != id) {
+            bucket = (bucket + 1) & mask;
+        }
+        return bucket;
+    }
+
+    /** Linear-probing delete: shifts later entries of the run back so lookups never stop early. */
+    private void deleteBucket(int bucket) {
+        int mask = table.length - 1;
+        int hole = bucket;
+        int next = (hole + 1) & mask;
+        while (table[next] != 0) {
+            int home = hash(ids[table[next] - 1]) & mask;
+            // Move the entry into the hole unless its home lies cyclically in (hole, next]
+            boolean stays = hole <= next ? (hole < home && home <= next) : (hole < home || home <= next);
+            if (!stays) {
+                table[hole] = table[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        table[hole] = 0;
+    }
+
+    private void compact() {
+        int n = 0;
+        for (int i = 0; i < used; i++) {
+            if ((flags[i] & FLAG_REMOVED) != 0) continue;
+            ids[n] = ids[i];
+            flags[n] = flags[i];
+            n++;
+        }
+        used = n;
+        rehash(table.length);
+    }
+
+    private void rehash(int capacity) {
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int i = 0; i < used; i++) {
+            if ((flags[i] & FLAG_REMOVED) != 0) continue;
+            int bucket = hash(ids[i]) & mask;
+            while (table[bucket] != 0) bucket = (bucket + 1) & mask;
+            table[bucket] = i + 1;
+        }
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L; // Fibonacci hashing spreads sequential MediaStore ids
+        return (int) (h ^ (h >>> 32));
+    }
+}
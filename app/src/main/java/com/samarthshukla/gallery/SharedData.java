@@ -1,9 +0,0 @@
-package com.samarthshukla.gallery;
-
-import android.net.Uri;
-import java.util.List;
-
-public class SharedData {
-    // This will temporarily hold the list of images in memory
-    public static List<Uri> currentImageUris = null;
-}
\ No newline at end of file
@@ -0,0 +1,119 @@
+package com.samarthshukla.gallery;
+
+import androidx.annotation.NonNull;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Option;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.signature.ObjectKey;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Lets Glide load a {@link ThumbnailPyramid.Key} straight from the packed thumbnail stores.
+ * Glide's own disk cache is not needed for these: the pyramid already is the disk tier.
+ */
+public class ThumbnailModelLoader implements ModelLoader<ThumbnailPyramid.Key, ByteBuffer> {
+
+    /**
+     * Only serve what the pyramid can build from its own stores (a micro thumbnail may still be
+     * scaled from a stored grid one); anything else fails instead of going to MediaStore. For
+     * placeholders bound while the grid flies past, where a MediaStore decode would be wasted work.
+     */
+    public static final Option<Boolean> STORED_ONLY =
+            Option.memory("com.samarthshukla.gallery.ThumbnailModelLoader.StoredOnly", false);
+
+    private final ThumbnailPyramid pyramid;
+
+    ThumbnailModelLoader(ThumbnailPyramid pyramid) {
+        this.pyramid = pyramid;
+    }
+
+    @Override
+    public LoadData<ByteBuffer> buildLoadData(@NonNull ThumbnailPyramid.Key key, int width, int height,
+                                              @NonNull Options options) {
+        return new LoadData<>(new ObjectKey(key), new Fetcher(pyramid, key, options.get(STORED_ONLY)));
+    }
+
+    @Override
+    public boolean handles(@NonNull ThumbnailPyramid.Key key) {
+        return true;
+    }
+
+    public static class Factory implements ModelLoaderFactory<ThumbnailPyramid.Key, ByteBuffer> {
+        private final ThumbnailPyramid pyramid;
+
+        public Factory(ThumbnailPyramid pyramid) {
+            this.pyramid = pyramid;
+        }
+
+        @NonNull
+        @Override
+        public ModelLoader<ThumbnailPyramid.Key, ByteBuffer> build(@NonNull MultiModelLoaderFactory factory) {
+            return new ThumbnailModelLoader(pyramid);
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+
+    private static class Fetcher implements DataFetcher<ByteBuffer> {
+        private final ThumbnailPyramid pyramid;
+        private final ThumbnailPyramid.Key key;
+        private final boolean storedOnly;
+        private volatile boolean fromStore;
+
+        Fetcher(ThumbnailPyramid pyramid, ThumbnailPyramid.Key key, boolean storedOnly) {
+            this.pyramid = pyramid;
+            this.key = key;
+            this.storedOnly = storedOnly;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super ByteBuffer> callback) {
+            try {
+                ByteBuffer data = pyramid.find(key);
+                fromStore = data != null;
+                if (!fromStore && storedOnly) {
+                    data = pyramid.createFromStored(key);
+                    if (data == null) {
+                        callback.onLoadFailed(new FileNotFoundException("Not stored: " + key));
+                        return;
+                    }
+                }
+                callback.onDataReady(data != null ? data : pyramid.create(key));
+            } catch (IOException e) {
+                callback.onLoadFailed(e);
+            }
+        }
+
+        @Override
+        public void cleanup() {
+        }
+
+        @Override
+        public void cancel() {
+        }
+
+        @NonNull
+        @Override
+        public Class<ByteBuffer> getDataClass() {
+            return ByteBuffer.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            // Reported as a disk-cache read when the store already had it, for ThumbnailStats
+            return fromStore ? DataSource.DATA_DISK_CACHE : DataSource.LOCAL;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.samarthshukla.gallery;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.drawable.ColorDrawable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DecodeFormat;
+import com.bumptech.glide.load.engine.DiskCacheStrategy;
+import com.bumptech.glide.request.RequestOptions;
+
+/**
+ * Decode sizes and formats for every thumbnail surface, so each one decodes about as many pixels
+ * as it displays. Thumbnails prefer RGB_565: Glide only uses it for images without alpha (JPEGs,
+ * camera output) and still picks hardware bitmaps where the platform allows them.
+ */
+public final class ThumbnailPolicy {
+
+    // Matches item_folder.xml: 260dp card less 8dp padding each side, 120dp tall
+    private static final int FOLDER_COVER_WIDTH_DP = 244;
+    private static final int FOLDER_COVER_HEIGHT_DP = 120;
+    // Matches the thumbnail frame in item_recycle_bin.xml
+    private static final int RECYCLE_BIN_THUMB_DP = 60;
+    // Flat fill for cells that fly past before any thumbnail is available; reads on light and dark
+    private static final int PLACEHOLDER_COLOR = 0x33808080;
+    // From this many columns the grid is an overview, drawn from micro thumbnails
+    private static final int DENSE_SPAN_COUNT = 6;
+
+    private ThumbnailPolicy() {
+    }
+
+    /** Edge in px of one square grid cell; falls back to the screen width before the grid is laid out. */
+    public static int gridCellPx(int gridWidthPx, int spanCount) {
+        int width = gridWidthPx > 0 ? gridWidthPx : Resources.getSystem().getDisplayMetrics().widthPixels;
+        return Math.max(1, width / Math.max(1, spanCount));
+    }
+
+    /**
+     * Pyramid level for grid cells of {@code cellPx}. Overview grids use micro thumbnails even where
+     * their cells are a little larger: nobody inspects a photo at ten per row, and decoding grid
+     * thumbnails for a hundred cells per screen is what makes those grids stutter.
+     */
+    public static ThumbnailPyramid.Level gridLevel(int cellPx, int spanCount) {
+        return spanCount >= DENSE_SPAN_COUNT ? ThumbnailPyramid.Level.MICRO : ThumbnailPyramid.levelFor(cellPx);
+    }
+
+    /** Grid cells load from {@link ThumbnailPyramid}, which already is their disk tier. */
+    public static RequestOptions gridCell(int cellPx) {
+        return thumbnail(cellPx, cellPx).diskCacheStrategy(DiskCacheStrategy.NONE);
+    }
+
+    /**
+     * Micro thumbnails for cells bound during a fast scroll: decoded at the micro edge and scaled
+     * up by the ImageView, never fetched from MediaStore, and behind everything else in the queue.
+     */
+    public static RequestOptions fastScrollPlaceholder() {
+        ColorDrawable fill = new ColorDrawable(PLACEHOLDER_COLOR);
+        return thumbnail(ThumbnailPyramid.MICRO_EDGE_PX, ThumbnailPyramid.MICRO_EDGE_PX)
+                .diskCacheStrategy(DiskCacheStrategy.NONE)
+                .set(ThumbnailModelLoader.STORED_ONLY, true)
+                .priority(Priority.LOW)
+                .placeholder(fill)
+                .error(fill);
+    }
+
+    /** Album covers load from {@link ThumbnailPyramid} as well. */
+    public static RequestOptions folderCover(Context context) {
+        return thumbnail(dp(context, FOLDER_COVER_WIDTH_DP), dp(context, FOLDER_COVER_HEIGHT_DP))
+                .diskCacheStrategy(DiskCacheStrategy.NONE);
+    }
+
+    /** Pyramid level an album cover is drawn from: the card's long side picks it. */
+    public static ThumbnailPyramid.Level folderCoverLevel(Context context) {
+        return ThumbnailPyramid.levelFor(dp(context, FOLDER_COVER_WIDTH_DP));
+    }
+
+    public static RequestOptions recycleBin(Context context) {
+        int px = dp(context, RECYCLE_BIN_THUMB_DP);
+        return thumbnail(px, px);
+    }
+
+    private static RequestOptions thumbnail(int widthPx, int heightPx) {
+        return new RequestOptions()
+                .override(widthPx, heightPx)
+                .centerCrop()
+                .format(DecodeFormat.PREFER_RGB_565)
+                .diskCacheStrategy(DiskCacheStrategy.ALL);
+    }
+
+    private static int dp(Context context, int dp) {
+        return Math.round(dp * context.getResources().getDisplayMetrics().density);
+    }
+}
@@ -0,0 +1,263 @@
+package com.samarthshukla.gallery;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+import android.provider.MediaStore;
+import android.util.DisplayMetrics;
+import android.util.Size;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Thumbnails at three sizes, each kept in its own {@link ThumbnailStore}:
+ * <ul>
+ *   <li>{@link Level#MICRO} (~96px) for zoomed-out grids and fast-scroll placeholders,</li>
+ *   <li>{@link Level#GRID} (~512px) for grid cells and album covers,</li>
+ *   <li>{@link Level#SCREEN} (longest display side) for the viewer's first frame.</li>
+ * </ul>
+ * Callers pick a level with {@link #levelFor} from the size they actually display, so no surface
+ * decodes a bigger source than it needs. Micro thumbnails are scaled down from a stored grid
+ * thumbnail when there is one, which is far cheaper than asking MediaStore again.
+ */
+public class ThumbnailPyramid {
+
+    public enum Level { MICRO, GRID, SCREEN }
+
+    public static final int MICRO_EDGE_PX = 96;
+    public static final int GRID_EDGE_PX = 512;
+
+    private static final int JPEG_QUALITY = 85;
+
+    /** Glide model for one level of a thumbnail; equal keys share Glide's memory cache entry. */
+    public static final class Key {
+        final long id;
+        final boolean isVideo;
+        final long dateModified;
+        final Level level;
+
+        public Key(long id, boolean isVideo, long dateModified, Level level) {
+            this.id = id;
+            this.isVideo = isVideo;
+            this.dateModified = dateModified;
+            this.level = level;
+        }
+
+        /** The same media item at another level of the pyramid. */
+        public Key at(Level other) {
+            return other == level ? this : new Key(id, isVideo, dateModified, other);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key other = (Key) o;
+            return id == other.id && dateModified == other.dateModified && level == other.level;
+        }
+
+        @Override
+        public int hashCode() {
+            return (Long.hashCode(id) * 31 + Long.hashCode(dateModified)) * 31 + level.ordinal();
+        }
+
+        @Override
+        public String toString() {
+            return "thumb:" + level.name().toLowerCase() + ":" + id + ":" + dateModified;
+        }
+    }
+
+    private static ThumbnailPyramid instance;
+
+    public static synchronized ThumbnailPyramid get(Context context) {
+        if (instance == null) {
+            instance = new ThumbnailPyramid(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    /**
+     * Smallest level whose thumbnails still cover {@code edgePx} without visible upscaling. A grid
+     * cell up to half again the grid edge reads fine from the grid level once Glide scales it.
+     */
+    public static Level levelFor(int edgePx) {
+        if (edgePx <= MICRO_EDGE_PX + MICRO_EDGE_PX / 4) return Level.MICRO;
+        if (edgePx <= GRID_EDGE_PX + GRID_EDGE_PX / 2) return Level.GRID;
+        return Level.SCREEN;
+    }
+
+    private final ContentResolver resolver;
+    private final int screenEdgePx;
+    private final ThumbnailStore micro;
+    private final ThumbnailStore grid;
+    private final ThumbnailStore screen;
+
+    private ThumbnailPyramid(Context context) {
+        this.resolver = context.getContentResolver();
+        DisplayMetrics metrics = Resources.getSystem().getDisplayMetrics();
+        this.screenEdgePx = Math.max(GRID_EDGE_PX, Math.max(metrics.widthPixels, metrics.heightPixels));
+        File cache = context.getCacheDir();
+        // The grid level keeps the directory the single-size store used, so its packs carry over
+        this.micro = new ThumbnailStore(new File(cache, "thumbstore-micro"), 8L << 20, 4);
+        this.grid = new ThumbnailStore(new File(cache, "thumbstore"), 32L << 20, 8);
+        this.screen = new ThumbnailStore(new File(cache, "thumbstore-screen"), 32L << 20, 8);
+    }
+
+    /** Stored thumbnail bytes for the key's level, or null when missing or stale. */
+    public ByteBuffer find(Key key) throws IOException {
+        return store(key.level).find(key.id, key.dateModified);
+    }
+
+    /** Generates the key's level and appends it to that level's store. */
+    public ByteBuffer create(Key key) throws IOException {
+        byte[] bytes = generate(key); // outside the store's lock: this is the slow part
+        store(key.level).append(key.id, key.dateModified, bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    /**
+     * Builds the key's level from another stored level without touching MediaStore, or returns null
+     * when nothing stored can serve it. Only micro thumbnails can be built this way.
+     */
+    public ByteBuffer createFromStored(Key key) throws IOException {
+        if (key.level != Level.MICRO) return null;
+        Bitmap bitmap = microFromGrid(key);
+        if (bitmap == null) return null;
+        byte[] bytes = compress(bitmap, key.level);
+        micro.append(key.id, key.dateModified, bytes);
+        return ByteBuffer.wrap(bytes);
+    }
+
+    private ThumbnailStore store(Level level) {
+        switch (level) {
+            case MICRO:
+                return micro;
+            case SCREEN:
+                return screen;
+            default:
+                return grid;
+        }
+    }
+
+    private byte[] generate(Key key) throws IOException {
+        Bitmap bitmap;
+        switch (key.level) {
+            case MICRO:
+                bitmap = microFromGrid(key);
+                if (bitmap == null) bitmap = fromMediaStore(key, MICRO_EDGE_PX);
+                break;
+            case SCREEN:
+                bitmap = fromMediaStore(key, screenEdgePx);
+                break;
+            default:
+                bitmap = fromMediaStore(key, GRID_EDGE_PX);
+                break;
+        }
+        if (bitmap == null) {
+            throw new FileNotFoundException("No " + key.level + " thumbnail for " + key.id);
+        }
+        return compress(bitmap, key.level);
+    }
+
+    private static byte[] compress(Bitmap bitmap, Level level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(level == Level.MICRO ? 4096 : 32 * 1024);
+        bitmap.compress(Bitmap.CompressFormat.JPEG, JPEG_QUALITY, out);
+        bitmap.recycle();
+        return out.toByteArray();
+    }
+
+    /** Scales a stored grid thumbnail down to the micro edge, or null when there is none. */
+    private Bitmap microFromGrid(Key key) throws IOException {
+        ByteBuffer stored = grid.find(key.id, key.dateModified);
+        if (stored == null) return null;
+        byte[] bytes = new byte[stored.remaining()];
+        stored.get(bytes);
+
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, bounds);
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, MICRO_EDGE_PX);
+        Bitmap sampled = BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        return sampled == null ? null : fitEdge(sampled, MICRO_EDGE_PX, 0);
+    }
+
+    private Bitmap fromMediaStore(Key key, int edgePx) throws IOException {
+        Uri uri = MediaStoreQuery.contentUri(key.id, key.isVideo);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            return resolver.loadThumbnail(uri, new Size(edgePx, edgePx), null);
+        }
+        if (edgePx > GRID_EDGE_PX && !key.isVideo) {
+            // MINI_KIND tops out at 512px, so the screen level decodes the original, sampled
+            return decodeSampled(uri, edgePx);
+        }
+        Bitmap bitmap = key.isVideo
+                ? MediaStore.Video.Thumbnails.getThumbnail(
+                        resolver, key.id, MediaStore.Video.Thumbnails.MINI_KIND, null)
+                : MediaStore.Images.Thumbnails.getThumbnail(
+                        resolver, key.id, MediaStore.Images.Thumbnails.MINI_KIND, null);
+        return bitmap == null || edgePx >= GRID_EDGE_PX ? bitmap : fitEdge(bitmap, edgePx, 0);
+    }
+
+    private Bitmap decodeSampled(Uri uri, int edgePx) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        try (InputStream in = open(uri)) {
+            BitmapFactory.decodeStream(in, null, bounds);
+        }
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(bounds.outWidth, bounds.outHeight, edgePx);
+        Bitmap sampled;
+        try (InputStream in = open(uri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) return null;
+
+        int degrees;
+        try (InputStream in = open(uri)) {
+            int orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+            degrees = orientation == ExifInterface.ORIENTATION_ROTATE_90 ? 90
+                    : orientation == ExifInterface.ORIENTATION_ROTATE_180 ? 180
+                    : orientation == ExifInterface.ORIENTATION_ROTATE_270 ? 270 : 0;
+        }
+        return fitEdge(sampled, edgePx, degrees);
+    }
+
+    private InputStream open(Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) throw new FileNotFoundException("Cannot open " + uri);
+        return in;
+    }
+
+    /** Largest power-of-two sample that keeps the longest side at or above {@code edgePx}. */
+    private static int sampleSize(int width, int height, int edgePx) {
+        int longest = Math.max(width, height);
+        int sample = 1;
+        while (longest / (sample * 2) >= edgePx) sample *= 2;
+        return sample;
+    }
+
+    /** Scales so the longest side is at most {@code edgePx} and applies the EXIF rotation. */
+    private static Bitmap fitEdge(Bitmap source, int edgePx, int degrees) {
+        int longest = Math.max(source.getWidth(), source.getHeight());
+        if (longest <= edgePx && degrees == 0) return source;
+        Matrix matrix = new Matrix();
+        float scale = Math.min(1f, edgePx / (float) longest);
+        matrix.postScale(scale, scale);
+        matrix.postRotate(degrees);
+        Bitmap scaled = Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+        if (scaled != source) source.recycle();
+        return scaled;
+    }
+}
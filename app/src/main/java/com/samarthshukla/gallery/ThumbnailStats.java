@@ -0,0 +1,93 @@
+package com.samarthshukla.gallery;
+
+import android.util.Log;
+
+/**
+ * Counters for grid thumbnail work, logged and reset each time a grid settles after a scroll, so
+ * each log line is the cost of one scroll: cache hit rate, decode count and time, and prefetching.
+ * Main thread only.
+ */
+public final class ThumbnailStats {
+
+    private static final String TAG = "ThumbnailStats";
+
+    private static int binds;
+    private static int deferredBinds;
+    private static int preloadsIssued;
+    private static int preloadsSkipped;
+    private static int touchWarmups;
+    private static int touchWarmupsCancelled;
+    private static int memoryHits;
+    private static int diskHits;
+    private static int decodes;
+    private static long decodeMillis;
+
+    private ThumbnailStats() {
+    }
+
+    /** A grid bind; each one used to issue a second, duplicate preload for the same Uri. */
+    static void bind() {
+        binds++;
+    }
+
+    /** A bind during a fast scroll that showed a placeholder instead of decoding. */
+    static void deferredBind() {
+        deferredBinds++;
+    }
+
+    static void preloadIssued() {
+        preloadsIssued++;
+    }
+
+    /** A position ahead of the viewport that was already warmed, so no request was made. */
+    static void preloadSkipped() {
+        preloadsSkipped++;
+    }
+
+    static void touchWarmup() {
+        touchWarmups++;
+    }
+
+    /** The touch turned into a scroll and the full-size warm-up was dropped. */
+    static void touchWarmupCancelled() {
+        touchWarmupsCancelled++;
+    }
+
+    /** A grid cell finished loading; {@code fromMemory}/{@code fromDisk} say where it came from. */
+    static void loaded(boolean fromMemory, boolean fromDisk, long millis) {
+        if (fromMemory) {
+            memoryHits++;
+        } else if (fromDisk) {
+            diskHits++;
+        } else {
+            decodes++;
+            decodeMillis += millis;
+        }
+    }
+
+    static void logAndReset() {
+        if (binds == 0 && preloadsIssued == 0 && touchWarmups == 0) return; // nothing scrolled into view
+        int loads = memoryHits + diskHits + decodes;
+        Log.d(TAG, "binds=" + binds
+                + " deferredBinds=" + deferredBinds
+                + " memoryHitRate=" + (loads == 0 ? 0 : memoryHits * 100 / loads) + "%"
+                + " diskHits=" + diskHits
+                + " decodes=" + decodes
+                + " avgDecodeMs=" + (decodes == 0 ? 0 : decodeMillis / decodes));
+        Log.d(TAG, "duplicatePreloadsAvoided=" + binds
+                + " preloadsIssued=" + preloadsIssued
+                + " preloadsSkipped=" + preloadsSkipped
+                + " touchWarmups=" + touchWarmups
+                + " touchWarmupsCancelled=" + touchWarmupsCancelled);
+        binds = 0;
+        deferredBinds = 0;
+        preloadsIssued = 0;
+        preloadsSkipped = 0;
+        touchWarmups = 0;
+        touchWarmupsCancelled = 0;
+        memoryHits = 0;
+        diskHits = 0;
+        decodes = 0;
+        decodeMillis = 0;
+    }
+}
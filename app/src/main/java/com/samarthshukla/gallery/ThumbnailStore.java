@@ -0,0 +1,218 @@
+package com.samarthshukla.gallery;
+
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Packed blob store for one level of the {@link ThumbnailPyramid}. Small pre-scaled JPEGs are packed
+ * back to back into a few large append-only files; an index of (id, DATE_MODIFIED) to
+ * (pack, offset, length) lives in memory and is persisted as an append-only log. Reads are slices of
+ * a memory-mapped pack, so scrolling a large library touches a handful of files instead of one cache
+ * file per photo.
+ * <p>
+ * An edited photo gets a new DATE_MODIFIED, so its fresh thumbnail is appended and the old bytes
+ * become garbage; when the packs outgrow their budget the whole store is dropped and refilled.
+ */
+class ThumbnailStore {
+
+    private static final String TAG = "ThumbnailStore";
+
+    private static final String INDEX_FILE = "index.bin";
+    private static final String PACK_PREFIX = "pack-";
+    private static final int RECORD_BYTES = 8 + 8 + 4 + 4 + 4; // id, modified, pack, offset, length
+
+    private final File dir;
+    private final long packLimit;
+    private final int maxPacks;
+
+    // Index: open addressing on id; 0 marks an empty slot (MediaStore ids start at 1)
+    private long[] ids = new long[1024];
+    private long[] stamps = new long[1024];
+    private int[] packs = new int[1024];
+    private int[] offsets = new int[1024];
+    private int[] lengths = new int[1024];
+    private int count;
+
+    private final List<FileChannel> channels = new ArrayList<>();
+    private final List<MappedByteBuffer> maps = new ArrayList<>();
+    private FileChannel indexChannel;
+    private long activeLength;
+    private boolean opened;
+
+    private int hits;
+    private int misses;
+
+    ThumbnailStore(File dir, long packLimit, int maxPacks) {
+        this.dir = dir;
+        this.packLimit = packLimit;
+        this.maxPacks = maxPacks;
+    }
+
+    /** Stored bytes for {@code id}, or null when missing or stored for another DATE_MODIFIED. */
+    synchronized ByteBuffer find(long id, long dateModified) throws IOException {
+        ensureOpen();
+        int slot = slot(id);
+        if (ids[slot] != id || stamps[slot] != dateModified) {
+            misses++;
+            return null;
+        }
+        hits++;
+        if (((hits + misses) & 1023) == 0) {
+            Log.d(TAG, dir.getName() + ": hits=" + hits + " misses=" + misses + " entries=" + count
+                    + " packs=" + channels.size());
+        }
+
+        int pack = packs[slot];
+        int offset = offsets[slot];
+        int length = lengths[slot];
+        MappedByteBuffer map = maps.get(pack);
+        if (map == null || map.capacity() < offset + length) {
+            // The active pack has grown since it was mapped
+            map = channels.get(pack).map(FileChannel.MapMode.READ_ONLY, 0, channels.get(pack).size());
+            maps.set(pack, map);
+        }
+        ByteBuffer view = map.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice();
+    }
+
+    synchronized void append(long id, long dateModified, byte[] bytes) throws IOException {
+        ensureOpen();
+        if (activeLength + bytes.length > packLimit) {
+            if (channels.size() >= maxPacks) {
+                Log.d(TAG, dir.getName() + ": full, starting over");
+                reset();
+            } else {
+                openPack(channels.size());
+                activeLength = 0;
+            }
+        }
+
+        int pack = channels.size() - 1;
+        int offset = (int) activeLength;
+        channels.get(pack).write(ByteBuffer.wrap(bytes), offset);
+        activeLength += bytes.length;
+
+        // The data goes in before its index record, so a crash can only lose the last entry
+        ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        record.putLong(id).putLong(dateModified).putInt(pack).putInt(offset).putInt(bytes.length);
+        record.flip();
+        indexChannel.write(record, indexChannel.size());
+
+        put(id, dateModified, pack, offset, bytes.length);
+    }
+
+    /* ---------- files ---------- */
+
+    private void ensureOpen() throws IOException {
+        if (opened) return;
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Cannot create " + dir);
+        }
+
+        for (int pack = 0; new File(dir, PACK_PREFIX + pack).exists(); pack++) {
+            openPack(pack);
+        }
+        if (channels.isEmpty()) openPack(0);
+        activeLength = channels.get(channels.size() - 1).size();
+
+        indexChannel = new RandomAccessFile(new File(dir, INDEX_FILE), "rw").getChannel();
+        loadIndex();
+        opened = true;
+    }
+
+    private void openPack(int pack) throws IOException {
+        channels.add(new RandomAccessFile(new File(dir, PACK_PREFIX + pack), "rw").getChannel());
+        maps.add(null);
+    }
+
+    private void loadIndex() throws IOException {
+        long size = indexChannel.size();
+        ByteBuffer all = ByteBuffer.allocate((int) (size - size % RECORD_BYTES));
+        indexChannel.read(all, 0);
+        all.flip();
+        while (all.remaining() >= RECORD_BYTES) {
+            long id = all.getLong();
+            long modified = all.getLong();
+            int pack = all.getInt();
+            int offset = all.getInt();
+            int length = all.getInt();
+            // Later records win; skip any whose bytes never made it to disk
+            if (pack < channels.size() && (long) offset + length <= channels.get(pack).size()) {
+                put(id, modified, pack, offset, length);
+            }
+        }
+        Log.d(TAG, dir.getName() + ": loaded " + count + " thumbnails from " + channels.size() + " pack(s)");
+    }
+
+    private void reset() throws IOException {
+        for (FileChannel channel : channels) channel.close();
+        channels.clear();
+        maps.clear();
+        indexChannel.close();
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) {
+                if (!f.delete()) Log.w(TAG, "Could not delete " + f);
+            }
+        }
+        Arrays.fill(ids, 0);
+        count = 0;
+
+        openPack(0);
+        activeLength = 0;
+        indexChannel = new RandomAccessFile(new File(dir, INDEX_FILE), "rw").getChannel();
+    }
+
+    /* ---------- index ---------- */
+
+    private int slot(long id) {
+        int mask = ids.length - 1;
+        int i = (int) ((id ^ (id >>> 32)) * 0x9E3779B97F4A7C15L >>> 40) & mask;
+        while (ids[i] != 0 && ids[i] != id) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    private void put(long id, long modified, int pack, int offset, int length) {
+        if ((count + 1) * 4 > ids.length * 3) grow();
+        int i = slot(id);
+        if (ids[i] == 0) count++;
+        ids[i] = id;
+        stamps[i] = modified;
+        packs[i] = pack;
+        offsets[i] = offset;
+        lengths[i] = length;
+    }
+
+    private void grow() {
+        long[] oldIds = ids;
+        long[] oldStamps = stamps;
+        int[] oldPacks = packs;
+        int[] oldOffsets = offsets;
+        int[] oldLengths = lengths;
+        int capacity = oldIds.length * 2;
+        ids = new long[capacity];
+        stamps = new long[capacity];
+        packs = new int[capacity];
+        offsets = new int[capacity];
+        lengths = new int[capacity];
+        count = 0;
+        for (int i = 0; i < oldIds.length; i++) {
+            if (oldIds[i] != 0) {
+                put(oldIds[i], oldStamps[i], oldPacks[i], oldOffsets[i], oldLengths[i]);
+            }
+        }
+    }
+}
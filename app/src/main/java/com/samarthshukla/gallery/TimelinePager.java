@@ -0,0 +1,106 @@
+package com.samarthshukla.gallery;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Feeds the photo grid from {@link MediaIndex} one page at a time, so the first paint only waits
+ * for the first page and memory grows with what the user has actually scrolled to.
+ * All public methods and callbacks run on the main thread.
+ */
+public class TimelinePager {
+
+    public static final int PAGE_SIZE = 300;
+
+    public interface Callback {
+        /**
+         * @param reset      true when the page replaces everything loaded so far
+         * @param endReached true when there is nothing left to load
+         */
+        void onPageLoaded(MediaTable page, boolean reset, boolean endReached);
+    }
+
+    private final MediaIndex index;
+    private final Callback callback;
+    private final Executor executor = BackgroundExecutor.io().serial(BackgroundExecutor.Lane.VISIBLE);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private long lastDateAdded = Long.MAX_VALUE;
+    private long lastId = Long.MAX_VALUE;
+    private int loadedCount;
+    private boolean loading;
+    private boolean endReached;
+    private boolean resetting;      // a reset load is in flight
+    private boolean refreshPending; // and another refresh was asked for meanwhile
+    private int generation;
+    private boolean released;
+
+    public TimelinePager(MediaIndex index, Callback callback) {
+        this.index = index;
+        this.callback = callback;
+    }
+
+    /** Starts over from the newest item. */
+    public void start() {
+        load(true, PAGE_SIZE);
+    }
+
+    /**
+     * Re-reads from the top but keeps at least as many rows as are loaded, so the scroll position
+     * survives. Refreshes asked for while one is running collapse into a single one after it.
+     */
+    public void refresh() {
+        if (resetting) {
+            refreshPending = true;
+            return;
+        }
+        load(true, Math.max(loadedCount, PAGE_SIZE));
+    }
+
+    public void loadNext() {
+        if (released || loading || endReached) return;
+        load(false, PAGE_SIZE);
+    }
+
+    public boolean isEndReached() {
+        return endReached;
+    }
+
+    public void release() {
+        generation++;
+        released = true;
+    }
+
+    private void load(boolean reset, int limit) {
+        if (released) return;
+        loading = true;
+        if (reset) resetting = true;
+        final int gen = reset ? ++generation : generation;
+        final long afterDate = reset ? Long.MAX_VALUE : lastDateAdded;
+        final long afterId = reset ? Long.MAX_VALUE : lastId;
+
+        executor.execute(() -> {
+            MediaTable page = new MediaTable();
+            index.loadTimelinePage(afterDate, afterId, limit, page);
+            mainHandler.post(() -> {
+                if (gen != generation) return; // superseded by a newer reset
+
+                loading = false;
+                if (reset) resetting = false;
+                loadedCount = (reset ? 0 : loadedCount) + page.size();
+                endReached = page.size() < limit;
+                if (!page.isEmpty()) {
+                    lastDateAdded = page.dateAdded(page.size() - 1);
+                    lastId = page.id(page.size() - 1);
+                }
+                callback.onPageLoaded(page, reset, endReached);
+                if (reset && refreshPending) {
+                    refreshPending = false;
+                    refresh();
+                }
+            });
+        });
+    }
+}
@@ -0,0 +1,34 @@
+package com.samarthshukla.gallery;
+
+import android.net.Uri;
+
+import java.util.List;
+
+/**
+ * Where the recycle bin keeps deleted media. {@link RecycleBinManager} picks one for new deletions
+ * by API level; items deleted before an upgrade stay with the backend that took them. All methods
+ * block.
+ */
+interface TrashBackend {
+
+    /**
+     * Takes {@code uris} out of the gallery and into this bin.
+     *
+     * @param videos   whether each item is a video, by index
+     * @param progress may be null
+     * @return the items now in the bin
+     */
+    List<RecycleBinManager.DeletedItem> trash(List<Uri> uris, boolean[] videos,
+                                              RecycleBinManager.ProgressListener progress);
+
+    boolean restore(RecycleBinManager.DeletedItem item);
+
+    /** Removes {@code item} for good. */
+    boolean delete(RecycleBinManager.DeletedItem item);
+
+    /** Everything in this bin, oldest deletion first. */
+    List<RecycleBinManager.DeletedItem> list();
+
+    /** Removes everything in this bin for good. */
+    void clear();
+}